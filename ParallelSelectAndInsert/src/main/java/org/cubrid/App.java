@@ -1,13 +1,21 @@
 package org.cubrid;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.SQLException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
@@ -29,19 +37,81 @@ public class App {
 		Option optDestinationTableName = Option.builder("d").longOpt("dest-table-name")
 				.desc("Specifies the name of the destination table to insert records to").hasArg(true).build();
 		Option optNumThreads = Option.builder("t").longOpt("thread-count")
-				.desc("Specifies the number of threads to use for concurrent processing").hasArg(true).build();
+				.desc("Specifies the number of threads to use for concurrent processing (default 1, or planned with -P)")
+				.hasArg(true).build();
+		Option optAutoTune = Option.builder("a").longOpt("auto-tune")
+				.desc("Adjusts the number of active threads at runtime, up to the thread count, to maximize throughput")
+				.hasArg(false).build();
+		Option optBatchBytes = Option.builder("B").longOpt("batch-bytes")
+				.desc("Specifies the maximum estimated size of a batch, in bytes (k, m and g suffixes are allowed)")
+				.hasArg(true).build();
+		Option optHeapBudget = Option.builder("m").longOpt("heap-budget")
+				.desc("Specifies the memory shared by the batches of all threads, in bytes (k, m and g suffixes are allowed)")
+				.hasArg(true).build();
+		Option optShardKey = Option.builder("k").longOpt("shard-key")
+				.desc("Specifies the column that routes each record to one of the destinations").hasArg(true).build();
+		Option optShardRanges = Option.builder("r").longOpt("shard-ranges")
+				.desc("Specifies the comma-separated lower bounds of the shard key for the second and later destinations, "
+						+ "which are hashed if omitted")
+				.hasArg(true).build();
+		Option optRejectFile = Option.builder("e").longOpt("reject-file")
+				.desc("Specifies the file to write the records that fail to insert to, instead of stopping the copy")
+				.hasArg(true).build();
+		Option optMaxRetries = Option.builder("R").longOpt("max-retries")
+				.desc("Specifies how many times in all a thread retries its chunks after transient destination errors (default 3)")
+				.hasArg(true).build();
+		Option optCreateTable = Option.builder("c").longOpt("create-table")
+				.desc("Creates the destination table from the source definition and adds its indexes after the copy")
+				.hasArg(false).build();
+		Option optJfr = Option.builder("J").longOpt("jfr")
+				.desc("Records the batch and XA events, along with the default JDK events, to this flight recording file")
+				.hasArg(true).build();
+		Option optPlan = Option.builder("p").longOpt("plan")
+				.desc("Prints how the table would be copied and an estimated time, without writing anything")
+				.hasArg(false).build();
+		Option optApplyPlan = Option.builder("P").longOpt("apply-plan")
+				.desc("Plans the thread count, chunks, batch and fetch sizes from the table, as --plan prints them, "
+						+ "and copies as planned")
+				.hasArg(false).build();
+		Option optWriteMode = Option.builder("w").longOpt("write-mode")
+				.desc("Specifies how records are written to the destination table: insert (default) or upsert")
+				.hasArg(true).build();
 
 		Options options = new Options();
 		options.addOption(optHelp);
 		options.addOption(optSourceTableName);
 		options.addOption(optDestinationTableName);
 		options.addOption(optNumThreads);
+		options.addOption(optAutoTune);
+		options.addOption(optBatchBytes);
+		options.addOption(optHeapBudget);
+		options.addOption(optShardKey);
+		options.addOption(optShardRanges);
+		options.addOption(optRejectFile);
+		options.addOption(optMaxRetries);
+		options.addOption(optWriteMode);
+		options.addOption(optPlan);
+		options.addOption(optApplyPlan);
+		options.addOption(optCreateTable);
+		options.addOption(optJfr);
 
 		HelpFormatter formatter = new HelpFormatter();
 
 		String sourceTableName = null;
 		String destinationTableName = null;
 		int numThreads = -1;
+		WriteMode writeMode = WriteMode.INSERT;
+		boolean isAutoTune = false;
+		long batchBytes = -1;
+		long heapBudget = -1;
+		String shardColumnName = null;
+		List<String> shardRangeBoundaryList = null;
+		String rejectFileName = null;
+		int maxRetryCount = -1;
+		boolean isPlanOnly = false;
+		boolean isApplyPlan = false;
+		boolean isCreateTable = false;
+		String jfrFileName = null;
 
 		try {
 			CommandLineParser parser = new DefaultParser();
@@ -72,26 +142,89 @@ public class App {
 					numThreads = Integer.parseInt(command.getOptionValue("t"));
 
 					/*-
-					 * Retrieves the number of available logical CPU cores, 
-					 * limiting the count to a maximum of half the total if hyper-threading is enabled.
+					 * Copy threads spend most of their time waiting on the brokers,
+					 * so the thread count is limited by the destination connections, not by the CPU cores.
 					 */
-					int availableProcessors = Runtime.getRuntime().availableProcessors() / 2;
-					if (availableProcessors == 0) {
-						availableProcessors = 1;
-					}
-
-					if (numThreads > availableProcessors) {
+					int maxConnections = new ConnectionManager().getDestinationMaxConnections();
+					if (numThreads > maxConnections) {
 						LOGGER.log(Level.WARNING,
-								String.format("Setting thread count to %s exceeds the number of available processors",
-										availableProcessors));
-						numThreads = availableProcessors;
+								String.format("Setting thread count to %s exceeds the number of destination connections",
+										maxConnections));
+						numThreads = maxConnections;
 					}
 				} catch (NumberFormatException e) {
 					LOGGER.log(Level.SEVERE, e.getMessage(), e);
 					return;
+				} catch (IOException e) {
+					LOGGER.log(Level.SEVERE, e.getMessage(), e);
+					return;
+				}
+			}
+
+			if (command.hasOption("a")) {
+				isAutoTune = true;
+			}
+
+			try {
+				if (command.hasOption("B")) {
+					batchBytes = parseByteSize(command.getOptionValue("B"));
+				}
+
+				if (command.hasOption("m")) {
+					heapBudget = parseByteSize(command.getOptionValue("m"));
+				}
+
+				if (command.hasOption("R")) {
+					maxRetryCount = Integer.parseInt(command.getOptionValue("R"));
+				}
+			} catch (NumberFormatException e) {
+				LOGGER.log(Level.SEVERE, e.getMessage(), e);
+				return;
+			}
+
+			if (command.hasOption("k")) {
+				shardColumnName = command.getOptionValue("k");
+			}
+
+			if (command.hasOption("r")) {
+				if (shardColumnName == null) {
+					LOGGER.log(Level.SEVERE, "Shard ranges require a shard key");
+					return;
+				}
+
+				shardRangeBoundaryList = new ArrayList<String>();
+				for (String shardRangeBoundary : command.getOptionValue("r").split(",")) {
+					shardRangeBoundaryList.add(shardRangeBoundary.trim());
+				}
+			}
+
+			if (command.hasOption("e")) {
+				rejectFileName = command.getOptionValue("e");
+			}
+
+			if (command.hasOption("c")) {
+				isCreateTable = true;
+			}
+
+			if (command.hasOption("J")) {
+				jfrFileName = command.getOptionValue("J");
+			}
+
+			if (command.hasOption("p")) {
+				isPlanOnly = true;
+			}
+
+			if (command.hasOption("P")) {
+				isApplyPlan = true;
+			}
+
+			if (command.hasOption("w")) {
+				try {
+					writeMode = WriteMode.fromString(command.getOptionValue("w"));
+				} catch (IllegalArgumentException e) {
+					LOGGER.log(Level.SEVERE, e.getMessage(), e);
+					return;
 				}
-			} else {
-				numThreads = 1;
 			}
 		} catch (ParseException e) {
 			LOGGER.log(Level.SEVERE, e.getMessage(), e);
@@ -106,6 +239,51 @@ public class App {
 		}
 		*/
 
+		ParallelSelectAndInsert parallelSelectAndInsert = new ParallelSelectAndInsert();
+		parallelSelectAndInsert.setWriteMode(writeMode);
+		parallelSelectAndInsert.setAutoTune(isAutoTune);
+		parallelSelectAndInsert.setBatchBytes(batchBytes);
+		parallelSelectAndInsert.setHeapBudget(heapBudget);
+		parallelSelectAndInsert.setShardKey(shardColumnName, shardRangeBoundaryList);
+		parallelSelectAndInsert.setRejectFileName(rejectFileName);
+		parallelSelectAndInsert.setMaxRetryCount(maxRetryCount);
+		parallelSelectAndInsert.setCreateTable(isCreateTable);
+
+		/* The planner only runs when asked, and an applied plan picks the thread count unless -t is given. */
+		if (isPlanOnly || isApplyPlan) {
+			try {
+				CopyPlan plan = parallelSelectAndInsert.plan(sourceTableName, destinationTableName, numThreads);
+
+				if (isPlanOnly) {
+					System.out.print(plan.explain());
+					return;
+				}
+
+				numThreads = plan.getNumThreads();
+				parallelSelectAndInsert.setPlan(plan);
+			} catch (ClassNotFoundException | IOException | SQLException e) {
+				if (isPlanOnly) {
+					LOGGER.log(Level.SEVERE, e.getMessage(), e);
+					return;
+				}
+
+				LOGGER.log(Level.WARNING, String.format("Failed to plan the copy, using the defaults: %s",
+						e.getMessage()));
+			}
+		}
+
+		numThreads = Math.max(numThreads, 1);
+
+		Recording recording = null;
+		if (jfrFileName != null) {
+			try {
+				recording = startRecording(jfrFileName);
+			} catch (IOException | java.text.ParseException e) {
+				LOGGER.log(Level.SEVERE, e.getMessage(), e);
+				return;
+			}
+		}
+
 		Instant start = Instant.now();
 
 		ExecutorService executorService = Executors.newSingleThreadExecutor();
@@ -113,11 +291,16 @@ public class App {
 		Future<Void> future = executorService.submit(progressBar);
 		assert (future != null);
 
-		ParallelSelectAndInsert parallelSelectAndInsert = new ParallelSelectAndInsert();
 		parallelSelectAndInsert.start(sourceTableName, destinationTableName, numThreads, progressBar);
 
 		executorService.shutdownNow();
 
+		if (recording != null) {
+			recording.stop();
+			recording.close();
+			LOGGER.log(Level.INFO, String.format("Flight recording written to %s", jfrFileName));
+		}
+
 		Instant end = Instant.now();
 		Duration duration = Duration.between(start, end);
 
@@ -139,4 +322,39 @@ public class App {
 		}
 		*/
 	}
+
+	/*-
+	 * The batch and XA events are disabled by default, so they cost nothing unless recorded.
+	 * This recording enables them on top of the default JDK settings,
+	 * so that slow batches can be lined up with GC pauses and thread states.
+	 */
+	private static Recording startRecording(String jfrFileName) throws IOException, java.text.ParseException {
+		Recording recording = new Recording(Configuration.getConfiguration("default"));
+		recording.enable(BatchEvent.class);
+		recording.enable(XABranchEvent.class);
+		recording.setToDisk(true);
+		recording.setDestination(Paths.get(jfrFileName));
+		recording.start();
+
+		return recording;
+	}
+
+	private static long parseByteSize(String value) throws NumberFormatException {
+		String size = value.trim().toLowerCase();
+		long multiplier = 1;
+
+		if (size.endsWith("k")) {
+			multiplier = 1024L;
+		} else if (size.endsWith("m")) {
+			multiplier = 1024L * 1024;
+		} else if (size.endsWith("g")) {
+			multiplier = 1024L * 1024 * 1024;
+		}
+
+		if (multiplier > 1) {
+			size = size.substring(0, size.length() - 1);
+		}
+
+		return Long.parseLong(size) * multiplier;
+	}
 }
@@ -0,0 +1,50 @@
+package org.cubrid;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/*-
+ * A batch written by one writer to one destination. The event spans the bind and the execution,
+ * and the fetch duration is the time the copy task took to fill the batch before handing it over.
+ *
+ * Disabled unless a recording enables it, such as the one started with --jfr.
+ */
+@Name("org.cubrid.Batch")
+@Label("Batch")
+@Category({ "ParallelSelectAndInsert" })
+@Description("A batch of rows fetched from the source and written to one destination")
+@Enabled(false)
+@StackTrace(false)
+public class BatchEvent extends Event {
+	@Label("Thread Number")
+	public int threadNum;
+
+	@Label("Destination Number")
+	public int destinationNum;
+
+	@Label("Row Count")
+	public int rowCount;
+
+	@Label("Estimated Size")
+	@DataAmount
+	public long bytes;
+
+	@Label("Fetch Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	public long fetchDuration;
+
+	@Label("Bind Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	public long bindDuration;
+
+	@Label("Execute Duration")
+	@Timespan(Timespan.NANOSECONDS)
+	public long executeDuration;
+}
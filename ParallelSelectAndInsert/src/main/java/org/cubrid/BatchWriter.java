@@ -0,0 +1,335 @@
+package org.cubrid;
+
+import java.io.IOException;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+
+/*-
+ * Writes the batches of one copy task to one destination, on that destination's connection and XA branch.
+ * 
+ * A batch can be shared by the writers of several destinations. The writer that releases it last
+ * reports the progress and gives the batch back to the copy task, so a slow destination holds on to batches
+ * and throttles the copy task only through its bounded set of buffered batches.
+ * 
+ * With a reject writer, the rows of a failed batch that the driver reports as failed are written to the reject file
+ * and the others are kept, so that a few bad rows do not roll back the whole copy.
+ * 
+ * BLOB and CLOB columns arrive as source locators and are streamed into destination LOBs while the row is bound.
+ */
+public class BatchWriter implements Callable<Void> {
+	private static final RowBatch END_OF_BATCHES = new RowBatch(new int[] { Types.OTHER }, 1);
+
+	private final int threadNum;
+	private final int destinationNum;
+	private final Connection destinationConnection;
+	private final BlockingQueue<RowBatch> batchQueue;
+	private final BlockingQueue<RowBatch> freeBatchQueue;
+	private final ProgressBarTask progressBar;
+	private final ConcurrencyController concurrencyController;
+	private final CopyControl copyControl;
+
+	private volatile String insertRecordToDestinationQuery;
+	private volatile int[] updateColumnIndexes;
+	private volatile int[] lobColumnIndexes;
+	private volatile SQLException failure;
+
+	private RejectWriter rejectWriter;
+	private LobStreamer lobStreamer;
+	private Object[] lobValues;
+
+	public BatchWriter(int threadNum, int destinationNum, Connection destinationConnection,
+			BlockingQueue<RowBatch> freeBatchQueue, int capacity, ProgressBarTask progressBar,
+			ConcurrencyController concurrencyController, CopyControl copyControl) {
+		this.threadNum = threadNum;
+		this.destinationNum = destinationNum;
+		this.destinationConnection = destinationConnection;
+		this.batchQueue = new ArrayBlockingQueue<RowBatch>(capacity + 1);
+		this.freeBatchQueue = freeBatchQueue;
+		this.progressBar = progressBar;
+		this.concurrencyController = concurrencyController;
+		this.copyControl = copyControl;
+
+		assert (destinationConnection != null);
+		assert (freeBatchQueue != null);
+		assert (progressBar != null);
+		assert (copyControl != null);
+
+		this.insertRecordToDestinationQuery = null;
+		this.updateColumnIndexes = null;
+		this.lobColumnIndexes = null;
+		this.failure = null;
+
+		this.rejectWriter = null;
+		this.lobStreamer = null;
+		this.lobValues = null;
+	}
+
+	public void setRejectWriter(RejectWriter rejectWriter) {
+		this.rejectWriter = rejectWriter;
+	}
+
+	public int getDestinationNum() {
+		return destinationNum;
+	}
+
+	/* Must be called before the first batch is submitted. */
+	public void setInsertRecordToDestinationQuery(String insertRecordToDestinationQuery, int[] updateColumnIndexes) {
+		this.insertRecordToDestinationQuery = insertRecordToDestinationQuery;
+		this.updateColumnIndexes = updateColumnIndexes;
+	}
+
+	/* Must be called before the first batch is submitted. */
+	public void setLobColumnIndexes(int[] lobColumnIndexes) {
+		this.lobColumnIndexes = lobColumnIndexes;
+	}
+
+	public void submit(RowBatch rowBatch) throws InterruptedException, SQLException {
+		checkFailure();
+		batchQueue.put(rowBatch);
+	}
+
+	public void finish() throws InterruptedException {
+		batchQueue.put(END_OF_BATCHES);
+	}
+
+	public boolean isFailure(SQLException e) {
+		return failure != null && failure == e;
+	}
+
+	public void checkFailure() throws SQLException {
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	@Override
+	public Void call() throws InterruptedException, SQLException {
+		PreparedStatement destinationStatement = null;
+
+		try {
+			while (true) {
+				RowBatch rowBatch = batchQueue.take();
+				if (rowBatch == END_OF_BATCHES) {
+					break;
+				}
+
+				/* After a failure, the remaining batches are only released so that the copy task does not block. */
+				if (failure == null) {
+					try {
+						if (destinationStatement == null) {
+							destinationStatement = destinationConnection
+									.prepareStatement(insertRecordToDestinationQuery);
+						}
+
+						executeBatch(destinationStatement, rowBatch);
+					} catch (SQLException e) {
+						copyControl.addError();
+						failure = e;
+					}
+				}
+
+				release(rowBatch);
+			}
+		} finally {
+			if (destinationStatement != null) {
+				destinationStatement.close();
+			}
+		}
+
+		checkFailure();
+
+		return null;
+	}
+
+	private void executeBatch(PreparedStatement destinationStatement, RowBatch rowBatch) throws SQLException {
+		try {
+			executeBatchRows(destinationStatement, rowBatch);
+		} finally {
+			if (lobStreamer != null) {
+				lobStreamer.freeCreatedLobs();
+			}
+		}
+	}
+
+	private void executeBatchRows(PreparedStatement destinationStatement, RowBatch rowBatch) throws SQLException {
+		int rowCount = rowBatch.size();
+
+		BatchEvent event = new BatchEvent();
+		event.begin();
+		long bindStartNanos = System.nanoTime();
+
+		for (int i = 0; i < rowCount; i++) {
+			bindRow(destinationStatement, rowBatch, i);
+			destinationStatement.addBatch();
+		}
+
+		long startNanos = System.nanoTime();
+
+		try {
+			destinationStatement.executeBatch();
+		} catch (SQLException e) {
+			destinationStatement.clearBatch();
+
+			if (rejectWriter == null || SQLErrorClassifier.isConnectionError(e)) {
+				throw e;
+			}
+
+			executeRows(destinationStatement, rowBatch, rejectFailedRows(rowBatch, 0, rowCount, e), rowCount);
+		}
+
+		long executeNanos = System.nanoTime() - startNanos;
+
+		copyControl.addExecutedBatch();
+
+		if (concurrencyController != null) {
+			concurrencyController.addBatch(rowCount, executeNanos);
+		}
+
+		event.end();
+		if (event.shouldCommit()) {
+			event.threadNum = threadNum;
+			event.destinationNum = destinationNum;
+			event.rowCount = rowCount;
+			event.bytes = rowBatch.getBytes();
+			event.fetchDuration = rowBatch.getFetchNanos();
+			event.bindDuration = startNanos - bindStartNanos;
+			event.executeDuration = executeNanos;
+			event.commit();
+		}
+	}
+
+	private void bindRow(PreparedStatement destinationStatement, RowBatch rowBatch, int rowNum) throws SQLException {
+		int columnCount = rowBatch.getColumnCount();
+		int[] updateColumnIndexes = this.updateColumnIndexes;
+		int[] lobColumnIndexes = this.lobColumnIndexes;
+
+		/* The batch keeps the source locators, so that the row can be bound again if it has to be retried. */
+		if (lobColumnIndexes != null) {
+			if (lobStreamer == null) {
+				lobStreamer = new LobStreamer(destinationConnection);
+				lobValues = new Object[columnCount];
+			}
+
+			for (int i = 0; i < lobColumnIndexes.length; i++) {
+				lobValues[lobColumnIndexes[i]] = lobStreamer.copy(rowBatch.getValue(rowNum, lobColumnIndexes[i]));
+			}
+		}
+
+		for (int i = 0; i < columnCount; i++) {
+			bindColumn(destinationStatement, i + 1, rowBatch, rowNum, i);
+		}
+
+		if (updateColumnIndexes != null) {
+			for (int i = 0; i < updateColumnIndexes.length; i++) {
+				bindColumn(destinationStatement, columnCount + i + 1, rowBatch, rowNum, updateColumnIndexes[i] - 1);
+			}
+		}
+	}
+
+	/* Only the LOB columns have values of their own, the others are bound straight from the batch. */
+	private void bindColumn(PreparedStatement destinationStatement, int parameterIndex, RowBatch rowBatch, int rowNum,
+			int columnNum) throws SQLException {
+		if (lobValues != null && lobValues[columnNum] != null) {
+			destinationStatement.setObject(parameterIndex, lobValues[columnNum]);
+			return;
+		}
+
+		rowBatch.bind(destinationStatement, parameterIndex, rowNum, columnNum);
+	}
+
+	/*-
+	 * Rejects the failed rows among the rows from fromRowNum to toRowNum (exclusive) of a failed execution,
+	 * and returns the row to execute again from, or toRowNum if none is left.
+	 * 
+	 * A connection on an XA branch cannot set savepoints, so nothing is rolled back. Each row of the batch
+	 * is a statement of its own, so the rows the driver reports as executed stay inserted.
+	 * If the driver reports a result for every row, only the failed rows are rejected.
+	 * If it stopped at the first failure, that row is rejected and the rows after it are to be executed again.
+	 * Without the update counts, the rows that were inserted are not known, so the failure is raised.
+	 */
+	private int rejectFailedRows(RowBatch rowBatch, int fromRowNum, int toRowNum, SQLException e)
+			throws SQLException {
+		if (!(e instanceof BatchUpdateException) || ((BatchUpdateException) e).getUpdateCounts() == null) {
+			throw e;
+		}
+
+		int[] updateCounts = ((BatchUpdateException) e).getUpdateCounts();
+		int rowCount = toRowNum - fromRowNum;
+		int processedCount = Math.min(updateCounts.length, rowCount);
+
+		for (int i = 0; i < processedCount; i++) {
+			if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+				reject(rowBatch, fromRowNum + i, e);
+			}
+		}
+
+		if (processedCount < rowCount) {
+			reject(rowBatch, fromRowNum + processedCount, e);
+			return fromRowNum + processedCount + 1;
+		}
+
+		return toRowNum;
+	}
+
+	/* Executes the rows left after a failure, until every row is either inserted or rejected. */
+	private void executeRows(PreparedStatement destinationStatement, RowBatch rowBatch, int fromRowNum,
+			int toRowNum) throws SQLException {
+		int nextRowNum = fromRowNum;
+
+		while (nextRowNum < toRowNum) {
+			for (int i = nextRowNum; i < toRowNum; i++) {
+				bindRow(destinationStatement, rowBatch, i);
+				destinationStatement.addBatch();
+			}
+
+			try {
+				destinationStatement.executeBatch();
+				return;
+			} catch (SQLException e) {
+				destinationStatement.clearBatch();
+
+				if (SQLErrorClassifier.isConnectionError(e)) {
+					throw e;
+				}
+
+				nextRowNum = rejectFailedRows(rowBatch, nextRowNum, toRowNum, e);
+			}
+		}
+	}
+
+	private void reject(RowBatch rowBatch, int rowNum, SQLException e) throws SQLException {
+		try {
+			rejectWriter.reject(threadNum, destinationNum, rowBatch.getRow(rowNum), e);
+		} catch (IOException ioe) {
+			SQLException rejectFailure = new SQLException("Failed to write to the reject file", ioe);
+			rejectFailure.setNextException(e);
+			throw rejectFailure;
+		}
+
+		rowBatch.reject(rowNum);
+		copyControl.addRejectedRow();
+	}
+
+	private void release(RowBatch rowBatch) {
+		if (!rowBatch.release()) {
+			return;
+		}
+
+		/* The rejected rows were not copied, so they are left out of the progress. */
+		int rowCount = rowBatch.size() - rowBatch.getRejectedRowCount();
+
+		progressBar.addProgressPerThread(threadNum, rowCount);
+		progressBar.addProgressOfMain(rowCount);
+		copyControl.addCopiedRows(rowCount);
+
+		rowBatch.clear();
+		freeBatchQueue.offer(rowBatch);
+	}
+}
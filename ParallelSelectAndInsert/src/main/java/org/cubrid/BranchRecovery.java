@@ -0,0 +1,14 @@
+package org.cubrid;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/*-
+ * Replaces the XA branches of one copy thread after a failure.
+ * The work done in the old branches is rolled back, and their connections are closed.
+ */
+public interface BranchRecovery {
+	/* Returns the new destination connections of the thread, one per destination, with their branches started. */
+	List<Connection> recoverBranches(int threadNum) throws SQLException;
+}
@@ -0,0 +1,74 @@
+package org.cubrid;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*-
+ * Replaces repeated string values of one column with a single shared instance.
+ * 
+ * Columns such as sd_nm or sgg_nm hold a small set of values across millions of rows,
+ * so the buffered rows of a batch can share those instances instead of keeping a copy per row.
+ * The dictionary holds at most a fixed number of values and turns itself off
+ * once it sees that the column has too many distinct values to benefit from it.
+ * It is used by one copy task only and is not thread-safe.
+ */
+public class ColumnDictionary {
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	/* The dictionary decides whether to stay on after this many lookups. */
+	private static final int SAMPLE_COUNT = 4096;
+
+	private static final double MAX_MISS_RATIO = 0.5;
+
+	private final int capacity;
+	private Map<String, String> valueMap;
+
+	private long lookupCount;
+	private long missCount;
+	private boolean isEnabled;
+
+	public ColumnDictionary() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public ColumnDictionary(int capacity) {
+		this.capacity = capacity;
+		this.valueMap = new HashMap<String, String>();
+
+		this.lookupCount = 0;
+		this.missCount = 0;
+		this.isEnabled = true;
+	}
+
+	public Object encode(Object value) {
+		if (!isEnabled || !(value instanceof String)) {
+			return value;
+		}
+
+		String stringValue = (String) value;
+		String sharedValue = valueMap.get(stringValue);
+
+		lookupCount++;
+
+		if (sharedValue == null) {
+			missCount++;
+
+			if (valueMap.size() < capacity) {
+				valueMap.put(stringValue, stringValue);
+			}
+
+			sharedValue = stringValue;
+		}
+
+		if (lookupCount == SAMPLE_COUNT && missCount > SAMPLE_COUNT * MAX_MISS_RATIO) {
+			isEnabled = false;
+			valueMap = null;
+		}
+
+		return sharedValue;
+	}
+
+	public boolean isEnabled() {
+		return isEnabled;
+	}
+}
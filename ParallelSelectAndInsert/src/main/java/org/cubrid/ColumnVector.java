@@ -0,0 +1,79 @@
+package org.cubrid;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/*-
+ * The values of one column of a batch, stored densely by row number.
+ * 
+ * The copy task reads a value from the result set straight into the vector, and the writer binds it from there,
+ * so that numbers are not boxed into one object per cell while the batch is buffered.
+ * Nulls are kept in a bitmap. The arrays are allocated once and reused by every batch of the same copy task.
+ * 
+ * Rows must be read in order, starting from 0 after every clear.
+ */
+public abstract class ColumnVector {
+	private long[] nullWords;
+
+	protected ColumnVector(int capacity) {
+		this.nullWords = new long[getWordCount(capacity)];
+	}
+
+	/* The dictionary, if not null, is used for character columns. */
+	public static ColumnVector create(int columnType, int capacity, ColumnDictionary dictionary) {
+		switch (columnType) {
+		case Types.BIGINT:
+		case Types.INTEGER:
+		case Types.SMALLINT:
+		case Types.TINYINT:
+			return new LongColumnVector(columnType, capacity);
+		case Types.DOUBLE:
+		case Types.FLOAT:
+		case Types.REAL:
+			return new DoubleColumnVector(columnType, capacity);
+		case Types.CHAR:
+		case Types.VARCHAR:
+		case Types.NCHAR:
+		case Types.NVARCHAR:
+		case Types.LONGVARCHAR:
+			return new StringColumnVector(capacity, dictionary);
+		default:
+			return new ObjectColumnVector(columnType, capacity);
+		}
+	}
+
+	/* Reads the value of the column into the row, and returns its estimated size. */
+	public abstract long read(ResultSet resultSet, int columnIndex, int rowNum) throws SQLException;
+
+	public abstract void bind(PreparedStatement statement, int parameterIndex, int rowNum) throws SQLException;
+
+	public abstract Object getValue(int rowNum);
+
+	/* Called before a row beyond the current capacity is read. */
+	public void ensureCapacity(int capacity) {
+		int wordCount = getWordCount(capacity);
+		if (wordCount > nullWords.length) {
+			nullWords = Arrays.copyOf(nullWords, Math.max(wordCount, nullWords.length * 2));
+		}
+	}
+
+	/* Drops the values of the first size rows, but keeps the arrays. */
+	public void clear(int size) {
+		Arrays.fill(nullWords, 0, Math.min(getWordCount(size), nullWords.length), 0L);
+	}
+
+	public boolean isNull(int rowNum) {
+		return (nullWords[rowNum >>> 6] & (1L << rowNum)) != 0;
+	}
+
+	protected void setNull(int rowNum) {
+		nullWords[rowNum >>> 6] |= 1L << rowNum;
+	}
+
+	private static int getWordCount(int capacity) {
+		return (Math.max(1, capacity) + 63) >>> 6;
+	}
+}
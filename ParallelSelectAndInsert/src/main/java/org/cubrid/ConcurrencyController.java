@@ -0,0 +1,153 @@
+package org.cubrid;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/*-
+ * Adjusts the number of active copy workers by hill-climbing on the total throughput.
+ * 
+ * Every connection and XA branch is opened up front for the maximum number of workers.
+ * A worker whose number is not below the active worker count parks before taking its next chunk,
+ * so its connection stays idle until the controller lets it run again.
+ */
+public class ConcurrencyController implements Callable<Void> {
+	private static final Logger LOGGER = Logger.getLogger(ConcurrencyController.class.getName());
+
+	public static final long DEFAULT_INTERVAL_MILLIS = 5000;
+
+	/* Changes in throughput smaller than this ratio are treated as noise. */
+	private static final double THROUGHPUT_TOLERANCE = 0.05;
+
+	/* A batch latency this many times the best observed one is treated as a spike. */
+	private static final double LATENCY_SPIKE_RATIO = 2.0;
+
+	private final int minWorkerCount;
+	private final int maxWorkerCount;
+	private final long intervalMillis;
+
+	private volatile int activeWorkerCount;
+	private volatile boolean isStopped;
+	private volatile boolean isAborted;
+
+	private final AtomicLong rowCount;
+	private final AtomicLong batchCount;
+	private final AtomicLong batchNanos;
+
+	private int direction;
+	private double lastThroughput;
+	private double bestLatency;
+
+	public ConcurrencyController(int maxWorkerCount) {
+		this(1, maxWorkerCount, DEFAULT_INTERVAL_MILLIS);
+	}
+
+	public ConcurrencyController(int minWorkerCount, int maxWorkerCount, long intervalMillis) {
+		if (minWorkerCount <= 0 || maxWorkerCount < minWorkerCount) {
+			throw new IllegalArgumentException(
+					String.format("Invalid worker count range: %s - %s", minWorkerCount, maxWorkerCount));
+		}
+
+		this.minWorkerCount = minWorkerCount;
+		this.maxWorkerCount = maxWorkerCount;
+		this.intervalMillis = intervalMillis;
+
+		this.activeWorkerCount = maxWorkerCount;
+		this.isStopped = false;
+		this.isAborted = false;
+
+		this.rowCount = new AtomicLong(0);
+		this.batchCount = new AtomicLong(0);
+		this.batchNanos = new AtomicLong(0);
+
+		this.direction = 1;
+		this.lastThroughput = 0;
+		this.bestLatency = Double.MAX_VALUE;
+	}
+
+	@Override
+	public Void call() {
+		while (!Thread.currentThread().isInterrupted() && !isStopped) {
+			try {
+				Thread.sleep(intervalMillis);
+			} catch (InterruptedException e) {
+				return null;
+			}
+
+			adjust();
+		}
+
+		return null;
+	}
+
+	private void adjust() {
+		long rows = rowCount.getAndSet(0);
+		long batches = batchCount.getAndSet(0);
+		long nanos = batchNanos.getAndSet(0);
+
+		double throughput = (double) rows * 1000 / intervalMillis;
+		double latency = (batches > 0) ? (double) nanos / batches : 0;
+
+		if (batches > 0 && latency < bestLatency) {
+			bestLatency = latency;
+		}
+
+		if (batches > 0 && latency > bestLatency * LATENCY_SPIKE_RATIO) {
+			direction = -1;
+		} else if (throughput < lastThroughput * (1 - THROUGHPUT_TOLERANCE)) {
+			direction = -direction;
+		} else if (throughput <= lastThroughput * (1 + THROUGHPUT_TOLERANCE)) {
+			/* The returns are flat, so stay at the current level. */
+			lastThroughput = throughput;
+			return;
+		}
+
+		lastThroughput = throughput;
+		setActiveWorkerCount(activeWorkerCount + direction);
+
+		LOGGER.log(Level.FINE, String.format("%.0f rows/s, %.1f ms/batch, %s active workers", throughput,
+				latency / 1000000, activeWorkerCount));
+	}
+
+	public int getActiveWorkerCount() {
+		return activeWorkerCount;
+	}
+
+	public synchronized void setActiveWorkerCount(int workerCount) {
+		activeWorkerCount = Math.max(minWorkerCount, Math.min(maxWorkerCount, workerCount));
+		notifyAll();
+	}
+
+	public synchronized void awaitTurn(int threadNum) throws InterruptedException {
+		while (threadNum >= activeWorkerCount && !isStopped) {
+			wait();
+		}
+	}
+
+	/* Called once there are no chunks left, so that the parked workers can finish. */
+	public synchronized void stop() {
+		isStopped = true;
+		notifyAll();
+	}
+
+	/*-
+	 * Called when a worker fails for good, so that the parked workers wake up and the others take no more chunks.
+	 * Otherwise a parked worker would wait for a turn that never comes, and the copy would never roll back.
+	 */
+	public synchronized void abort() {
+		isAborted = true;
+		isStopped = true;
+		notifyAll();
+	}
+
+	public boolean isAborted() {
+		return isAborted;
+	}
+
+	public void addBatch(long rows, long nanos) {
+		rowCount.addAndGet(rows);
+		batchCount.incrementAndGet();
+		batchNanos.addAndGet(nanos);
+	}
+}
@@ -8,16 +8,17 @@ import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.Properties;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.TreeSet;
 
 import javax.sql.XAConnection;
 
-import cubrid.jdbc.driver.CUBRIDXADataSource;
-
 public class ConnectionManager {
-	private static final Logger LOGGER = Logger.getLogger(ConnectionManager.class.getName());
+	/* Same as the default MAX_NUM_APPL_SERVER of a CUBRID broker. */
+	public static final int DEFAULT_MAX_CONNECTIONS = 40;
 
 	public Connection getSourceConnection() throws ClassNotFoundException, IOException, SQLException {
 		Properties properties = new Properties();
@@ -34,7 +35,7 @@ public class ConnectionManager {
 		String password = properties.getProperty("SourcePassword");
 
 		try {
-			Class.forName("cubrid.jdbc.driver.CUBRIDDriver");
+			Class.forName(Dialect.forUrl(url).getDriverClassName());
 		} catch (ClassNotFoundException e) {
 			throw e;
 		}
@@ -51,6 +52,11 @@ public class ConnectionManager {
 	}
 
 	public Connection getDestinationConnection() throws ClassNotFoundException, IOException, SQLException {
+		return getDestinationConnection(0);
+	}
+
+	public Connection getDestinationConnection(int destinationNum)
+			throws ClassNotFoundException, IOException, SQLException {
 		Properties properties = new Properties();
 		Connection connection = null;
 
@@ -60,12 +66,12 @@ public class ConnectionManager {
 			throw e;
 		}
 
-		String url = properties.getProperty("DestinationUrl");
-		String user = properties.getProperty("DestinationUser");
-		String password = properties.getProperty("DestinationPassword");
+		String url = properties.getProperty(getDestinationPropertyName("DestinationUrl", destinationNum));
+		String user = properties.getProperty(getDestinationPropertyName("DestinationUser", destinationNum));
+		String password = properties.getProperty(getDestinationPropertyName("DestinationPassword", destinationNum));
 
 		try {
-			Class.forName("cubrid.jdbc.driver.CUBRIDDriver");
+			Class.forName(Dialect.forUrl(url).getDriverClassName());
 		} catch (ClassNotFoundException e) {
 			throw e;
 		}
@@ -81,36 +87,24 @@ public class ConnectionManager {
 	}
 
 	public XAConnection getDestinationXAConnection() throws ClassNotFoundException, IOException, SQLException {
-		Properties properties = new Properties();
-		CUBRIDXADataSource xaDataSource = null;
-		XAConnection xaConnection = null;
+		return getDestinationXAConnection(0);
+	}
 
-		try (Reader reader = new FileReader("databases.properties")) {
-			properties.load(reader);
-		} catch (IOException e) {
-			throw e;
-		}
+	public XAConnection getDestinationXAConnection(int destinationNum)
+			throws ClassNotFoundException, IOException, SQLException {
+		XAConnection xaConnection = null;
 
-		String serverName = properties.getProperty("DestinationServerName");
-		int portNumber = Integer.parseInt(properties.getProperty("DestinationPortNumber"));
-		String databaseName = properties.getProperty("DestinationDatabaseName");
-		String user = properties.getProperty("DestinationUser");
-		String password = properties.getProperty("DestinationPassword");
+		Properties xaProperties = getDestinationXAProperties(destinationNum);
+		Dialect dialect = Dialect.forUrl(xaProperties.getProperty("Url"));
 
 		try {
-			Class.forName("cubrid.jdbc.driver.CUBRIDDriver");
+			Class.forName(dialect.getDriverClassName());
 		} catch (ClassNotFoundException e) {
 			throw e;
 		}
 
 		try {
-			xaDataSource = new CUBRIDXADataSource();
-			xaDataSource.setServerName(serverName);
-			xaDataSource.setPortNumber(portNumber);
-			xaDataSource.setDatabaseName(databaseName);
-			xaDataSource.setUser(user);
-			xaDataSource.setPassword(password);
-			xaConnection = xaDataSource.getXAConnection();
+			xaConnection = dialect.getXAConnection(xaProperties);
 		} catch (SQLException e) {
 			throw e;
 		}
@@ -118,6 +112,111 @@ public class ConnectionManager {
 		return xaConnection;
 	}
 
+	/* The dialect reads the properties of this destination under their plain names, such as ServerName. */
+	private Properties getDestinationXAProperties(int destinationNum) throws IOException {
+		Properties properties = new Properties();
+
+		try (Reader reader = new FileReader("databases.properties")) {
+			properties.load(reader);
+		} catch (IOException e) {
+			throw e;
+		}
+
+		Properties xaProperties = new Properties();
+		for (String name : new String[] { "Url", "ServerName", "PortNumber", "DatabaseName", "User", "Password" }) {
+			String value = properties.getProperty(getDestinationPropertyName("Destination" + name, destinationNum));
+			if (value != null) {
+				xaProperties.setProperty(name, value);
+			}
+		}
+
+		return xaProperties;
+	}
+
+	public Dialect getSourceDialect() throws IOException {
+		return Dialect.forUrl(getProperty("SourceUrl"));
+	}
+
+	public Dialect getDestinationDialect(int destinationNum) throws IOException {
+		return Dialect.forUrl(getProperty(getDestinationPropertyName("DestinationUrl", destinationNum)));
+	}
+
+	/*-
+	 * The first destination uses the plain property names, such as DestinationServerName.
+	 * The other destinations add their 1-based number to them, such as DestinationServerName.2.
+	 */
+	private static String getDestinationPropertyName(String name, int destinationNum) {
+		if (destinationNum == 0) {
+			return name;
+		}
+
+		return name + "." + (destinationNum + 1);
+	}
+
+	/*-
+	 * Whether the only destination is the source database itself, reached by the same URL and user.
+	 * The rows are written on XA branches, which are opened from their own properties such as DestinationServerName,
+	 * so those must reach the source database as well.
+	 */
+	public boolean isSourceOnDestination() throws IOException {
+		if (getDestinationCount() != 1) {
+			return false;
+		}
+
+		String sourceUrl = getProperty("SourceUrl");
+		if (sourceUrl == null || !sourceUrl.trim().equals(String.valueOf(getProperty("DestinationUrl")).trim())) {
+			return false;
+		}
+
+		if (!Objects.equals(getProperty("SourceUser"), getProperty("DestinationUser"))) {
+			return false;
+		}
+
+		return getDestinationDialect(0).isXATargetOf(sourceUrl, getDestinationXAProperties(0));
+	}
+
+	public int getDestinationCount() throws IOException {
+		int destinationCount = (int) getLongProperty("DestinationCount", 1);
+		if (destinationCount <= 0) {
+			throw new IllegalArgumentException("DestinationCount must be greater than 0");
+		}
+
+		return destinationCount;
+	}
+
+	public int getDestinationMaxConnections() throws IOException {
+		return (int) getLongProperty("DestinationMaxConnections", DEFAULT_MAX_CONNECTIONS);
+	}
+
+	public long getSourceMaxRowsPerSecond() throws IOException {
+		return getLongProperty("SourceMaxRowsPerSecond", 0);
+	}
+
+	public long getSourceMaxBytesPerSecond() throws IOException {
+		return getLongProperty("SourceMaxBytesPerSecond", 0);
+	}
+
+	private long getLongProperty(String name, long defaultValue) throws IOException {
+		String value = getProperty(name);
+		if (value == null || value.trim().isEmpty()) {
+			return defaultValue;
+		}
+
+		return Long.parseLong(value.trim());
+	}
+
+	private String getProperty(String name) throws IOException {
+		Properties properties = new Properties();
+
+		try (Reader reader = new FileReader("databases.properties")) {
+			properties.load(reader);
+		} catch (IOException e) {
+			throw e;
+		}
+
+		return properties.getProperty(name);
+	}
+
 	public long getTableRowCount(Connection connection, String tableName)
 			throws IllegalArgumentException, SQLException {
 		if (connection == null) {
@@ -143,38 +242,59 @@ public class ConnectionManager {
 		throw new SQLException(String.format("Failed to get row count for table: %s", tableName));
 	}
 
-	private String getFindUsableIndexQuery(boolean withOwnerName) {
-		StringBuilder query = new StringBuilder();
+	/* The catalog of each database is read by the dialect of its connection. */
+	public String getFirstColumnOfUsableIndex(Connection connection, String tableName) throws SQLException {
+		if (connection == null) {
+			throw new IllegalArgumentException("Connection is null");
+		}
 
-		query.append("select a.index_name, a.is_primary_key, b.key_attr_name").append(" ");
-		query.append("from db_index as a, db_index_key as b, db_attribute as c").append(" ");
-		query.append("where").append(" ");
-		query.append("a.index_name = b.index_name").append(" ");
-		query.append("and a.class_name = b.class_name").append(" ");
-		query.append("and a.owner_name = b.owner_name").append(" ");
-		query.append("and b.class_name = c.class_name").append(" ");
-		query.append("and b.owner_name = c.owner_name").append(" ");
-		query.append("and b.key_attr_name = c.attr_name").append(" ");
-		query.append("and a.class_name = ?").append(" ");
-
-		if (withOwnerName) {
-			query.append("and a.owner_name = upper(?)").append(" ");
-		} else {
-			query.append("and a.owner_name = current_user").append(" ");
-		}
-
-		query.append("and a.filter_expression is null").append(" ");
-		query.append("and a.have_function = 'NO'").append(" ");
-		query.append("and a.status != 'INVISIBLE INDEX'").append(" ");
-		query.append("and b.key_order = 0").append(" ");
-		query.append("and c.is_nullable = 'NO'").append(" ");
-		query.append("order by a.is_primary_key desc").append(" ");
-		query.append("limit 1").append(" ");
-
-		return query.toString();
+		return Dialect.forConnection(connection).getFirstColumnOfUsableIndex(connection, tableName);
 	}
 
-	public String getFirstColumnOfUsableIndex(Connection connection, String tableName) throws SQLException {
+	public List<String> getPrimaryKeyColumnNames(Connection connection, String tableName) throws SQLException {
+		if (connection == null) {
+			throw new IllegalArgumentException("Connection is null");
+		}
+
+		return Dialect.forConnection(connection).getPrimaryKeyColumnNames(connection, tableName);
+	}
+
+	public int getIndexCount(Connection connection, String tableName) throws SQLException {
+		if (connection == null) {
+			throw new IllegalArgumentException("Connection is null");
+		}
+
+		return Dialect.forConnection(connection).getIndexCount(connection, tableName);
+	}
+
+	public boolean isTableExists(Connection connection, String tableName) throws SQLException {
+		if (connection == null) {
+			throw new IllegalArgumentException("Connection is null");
+		}
+
+		return Dialect.forConnection(connection).isTableExists(connection, tableName);
+	}
+
+	public TableDefinition getTableDefinition(Connection connection, String tableName) throws SQLException {
+		if (connection == null) {
+			throw new IllegalArgumentException("Connection is null");
+		}
+
+		return Dialect.forConnection(connection).getTableDefinition(connection, tableName);
+	}
+
+	public List<Object> getRangePartitionUpperBounds(Connection connection, String tableName, String columnName)
+			throws SQLException {
+		if (connection == null) {
+			throw new IllegalArgumentException("Connection is null");
+		}
+
+		return Dialect.forConnection(connection).getRangePartitionUpperBounds(connection, tableName, columnName);
+	}
+
+	/* Returns the number of rows whose column is less than the value, that is, where the value begins in column order. */
+	public long getRowCountBelow(Connection connection, String tableName, String columnName, Object value)
+			throws SQLException {
 		if (connection == null) {
 			throw new IllegalArgumentException("Connection is null");
 		}
@@ -183,36 +303,19 @@ public class ConnectionManager {
 			throw new IllegalArgumentException("Table name is null");
 		}
 
-		String bindTableName = null;
-		String bindOwnerName = null;
-		boolean withOwnerName = false;
-
-		int indexOfDot = tableName.indexOf(".");
-		if (indexOfDot > 0) {
-			bindOwnerName = tableName.substring(0, indexOfDot);
-			bindTableName = tableName.substring(indexOfDot + 1);
-			withOwnerName = true;
-		} else {
-			bindTableName = tableName;
+		if (columnName == null) {
+			throw new IllegalArgumentException("Column name is null");
 		}
 
-		String query = getFindUsableIndexQuery(withOwnerName);
+		StringBuilder query = new StringBuilder();
+		query.append("select count(*) from ").append(tableName).append(" where ").append(columnName).append(" < ?");
 
-		try (PreparedStatement statement = connection.prepareStatement(query)) {
-			if (withOwnerName) {
-				statement.setString(1, bindTableName);
-				statement.setString(2, bindOwnerName);
-			} else {
-				statement.setString(1, bindTableName);
-			}
+		try (PreparedStatement statement = connection.prepareStatement(query.toString())) {
+			statement.setObject(1, value);
 
 			try (ResultSet resultSet = statement.executeQuery()) {
 				if (resultSet.next()) {
-					String indexName = resultSet.getString("index_name");
-					String indexFirstColumnName = resultSet.getString("key_attr_name");
-
-					LOGGER.log(Level.INFO, String.format("The %s index is usable", indexName));
-					return indexFirstColumnName;
+					return resultSet.getLong(1);
 				}
 			} catch (SQLException e) {
 				throw e;
@@ -221,48 +324,104 @@ public class ConnectionManager {
 			throw e;
 		}
 
-		return null;
+		throw new SQLException(String.format("Failed to get row count for table: %s", tableName));
 	}
 
-	public static String getFetchSourceRecordsQuery(String tableName, String columnName) {
-		if (tableName == null) {
-			throw new IllegalArgumentException("Table name is null");
+	/*-
+	 * Returns the value of the column at each offset in column order, or null for an offset past the last row.
+	 * Each value is found on the index alone, once before the copy, in the snapshot of the connection.
+	 */
+	public List<Object> getKeysAtOffsets(Connection connection, String tableName, String columnName,
+			List<Long> offsetList) throws SQLException {
+		if (connection == null) {
+			throw new IllegalArgumentException("Connection is null");
 		}
 
-		StringBuilder query = new StringBuilder();
+		String query = Dialect.forConnection(connection).getFindKeyAtOffsetQuery(tableName, columnName);
+		List<Object> keyList = new ArrayList<Object>(offsetList.size());
+
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			for (long offset : offsetList) {
+				statement.setLong(1, offset);
+
+				try (ResultSet resultSet = statement.executeQuery()) {
+					keyList.add(resultSet.next() ? resultSet.getObject(1) : null);
+				} catch (SQLException e) {
+					throw e;
+				}
+			}
+		} catch (SQLException e) {
+			throw e;
+		}
+
+		return keyList;
+	}
 
-		if (columnName != null) {
-			query.append("select /*+ USE_IDX */ * from ").append(tableName).append(" where ").append(columnName)
-					.append(" = ").append(columnName).append(" order by ").append(columnName);
-		} else {
-			/* Consider using an 'ORDER BY' clause to ensure consistent data order. */
-			query.append("select * from ").append(tableName);
+	/*-
+	 * Returns where each range partition of the destination table begins in the source index order,
+	 * from 0 to the row count, or null if the destination is not partitioned by range on the index column.
+	 * The counts are read in the snapshot of the source connection, so they match the rows the readers see.
+	 * Every destination is assumed to be partitioned as the first one.
+	 */
+	public List<Long> getPartitionOffsets(Connection sourceConnection, String sourceTableName,
+			String destinationTableName, String columnName, long rowCount)
+			throws ClassNotFoundException, IOException, SQLException {
+		List<Object> upperBoundList = null;
+
+		try (Connection destinationConnection = getDestinationConnection()) {
+			upperBoundList = getRangePartitionUpperBounds(destinationConnection, destinationTableName, columnName);
+			destinationConnection.rollback();
 		}
 
-		query.append(" ").append("limit ?, ?");
+		if (upperBoundList == null) {
+			return null;
+		}
+
+		TreeSet<Long> offsetSet = new TreeSet<Long>();
+		offsetSet.add(0L);
+		offsetSet.add(rowCount);
+
+		for (Object upperBound : upperBoundList) {
+			long offset = getRowCountBelow(sourceConnection, sourceTableName, columnName, upperBound);
+			offsetSet.add(Math.min(offset, rowCount));
+		}
 
-		return query.toString();
+		/* With the rows in a single partition, the usual chunks copy it faster. */
+		if (offsetSet.size() < 3) {
+			return null;
+		}
+
+		return new ArrayList<Long>(offsetSet);
 	}
 
-	public static String getInsertRecordToDestinationQuery(String tableName, int columnCount) {
+	/* Returns the smallest and largest values of the column, as strings. */
+	public String[] getColumnRange(Connection connection, String tableName, String columnName) throws SQLException {
+		if (connection == null) {
+			throw new IllegalArgumentException("Connection is null");
+		}
+
 		if (tableName == null) {
 			throw new IllegalArgumentException("Table name is null");
 		}
 
-		StringBuilder query = new StringBuilder();
-		query.append("insert into ").append(tableName).append(" values (");
-
-		if (columnCount > 0) {
-			query.append("?");
+		if (columnName == null) {
+			throw new IllegalArgumentException("Column name is null");
 		}
 
-		for (int i = 1; i < columnCount; i++) {
+		StringBuilder query = new StringBuilder();
+		query.append("select min(").append(columnName).append("), max(").append(columnName).append(") from ")
+				.append(tableName);
 
-			query.append(", ").append("?");
+		try (PreparedStatement statement = connection.prepareStatement(query.toString());
+				ResultSet resultSet = statement.executeQuery()) {
+			if (resultSet.next()) {
+				return new String[] { resultSet.getString(1), resultSet.getString(2) };
+			}
+		} catch (SQLException e) {
+			throw e;
 		}
 
-		query.append(")");
-
-		return query.toString();
+		return new String[] { null, null };
 	}
+
 }
@@ -0,0 +1,46 @@
+package org.cubrid;
+
+/*-
+ * A range of source rows in index order, from the offset for rowCount rows.
+ * With a usable index, the chunk is read by the index keys where it begins and where it ends,
+ * with a null bound at either end of the table.
+ */
+public class CopyChunk {
+	private final int chunkNum;
+	private final long offset;
+	private final long rowCount;
+	private final Object lowerBound;
+	private final Object upperBound;
+
+	public CopyChunk(int chunkNum, long offset, long rowCount) {
+		this(chunkNum, offset, rowCount, null, null);
+	}
+
+	public CopyChunk(int chunkNum, long offset, long rowCount, Object lowerBound, Object upperBound) {
+		this.chunkNum = chunkNum;
+		this.offset = offset;
+		this.rowCount = rowCount;
+		this.lowerBound = lowerBound;
+		this.upperBound = upperBound;
+	}
+
+	public int getChunkNum() {
+		return chunkNum;
+	}
+
+	public long getOffset() {
+		return offset;
+	}
+
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	public Object getLowerBound() {
+		return lowerBound;
+	}
+
+	public Object getUpperBound() {
+		return upperBound;
+	}
+}
@@ -0,0 +1,222 @@
+package org.cubrid;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/*-
+ * Exposes the counters of a running copy over JMX and accepts changes to its settings.
+ * 
+ * The copy tasks read the batch limits at every batch boundary, the rate limits apply to the next rows read,
+ * and a change of the active worker count applies when a worker finishes its current chunk.
+ * With auto-tuning, the controller keeps adjusting the active worker count after it is set here.
+ */
+public class CopyControl implements CopyControlMBean {
+	private static final Logger LOGGER = Logger.getLogger(CopyControl.class.getName());
+
+	public static final String OBJECT_NAME = "org.cubrid:type=ParallelSelectAndInsert";
+
+	public enum ThreadState {
+		READY, RUNNING, PARKED, FINISHED, FAILED
+	}
+
+	private final long totalRowCount;
+	private final AtomicLong copiedRowCount;
+	private final AtomicLong executedBatchCount;
+	private final AtomicLong errorCount;
+	private final AtomicLong rejectedRowCount;
+	private final AtomicReferenceArray<ThreadState> threadStates;
+
+	private volatile int batchCount;
+	private volatile long batchBytes;
+
+	/* The share of the heap budget of one thread's buffered batches, which a batch size set here cannot exceed. */
+	private final long maxBatchBytes;
+
+	private final ConcurrencyController concurrencyController;
+	private final RateLimiter rateLimiter;
+
+	private ObjectName objectName;
+
+	public CopyControl(int numThreads, long totalRowCount, int batchCount, long batchBytes, long maxBatchBytes,
+			ConcurrencyController concurrencyController, RateLimiter rateLimiter) {
+		this.totalRowCount = totalRowCount;
+		this.copiedRowCount = new AtomicLong(0);
+		this.executedBatchCount = new AtomicLong(0);
+		this.errorCount = new AtomicLong(0);
+		this.rejectedRowCount = new AtomicLong(0);
+		this.threadStates = new AtomicReferenceArray<ThreadState>(numThreads);
+
+		for (int i = 0; i < numThreads; i++) {
+			threadStates.set(i, ThreadState.READY);
+		}
+
+		this.batchCount = batchCount;
+		this.batchBytes = batchBytes;
+		this.maxBatchBytes = maxBatchBytes;
+
+		this.concurrencyController = concurrencyController;
+		this.rateLimiter = rateLimiter;
+
+		this.objectName = null;
+	}
+
+	public void register() {
+		MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+
+		try {
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (mbeanServer.isRegistered(name)) {
+				mbeanServer.unregisterMBean(name);
+			}
+
+			mbeanServer.registerMBean(this, name);
+			objectName = name;
+		} catch (JMException e) {
+			LOGGER.log(Level.WARNING, "Failed to register the JMX control", e);
+		}
+	}
+
+	public void unregister() {
+		if (objectName == null) {
+			return;
+		}
+
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		} catch (JMException e) {
+			LOGGER.log(Level.WARNING, "Failed to unregister the JMX control", e);
+		}
+
+		objectName = null;
+	}
+
+	public void addCopiedRows(long rowCount) {
+		copiedRowCount.addAndGet(rowCount);
+	}
+
+	public void addExecutedBatch() {
+		executedBatchCount.incrementAndGet();
+	}
+
+	public void addError() {
+		errorCount.incrementAndGet();
+	}
+
+	public void addRejectedRow() {
+		rejectedRowCount.incrementAndGet();
+	}
+
+	public void setThreadState(int threadNum, ThreadState threadState) {
+		threadStates.set(threadNum, threadState);
+	}
+
+	@Override
+	public long getTotalRowCount() {
+		return totalRowCount;
+	}
+
+	@Override
+	public long getCopiedRowCount() {
+		return copiedRowCount.get();
+	}
+
+	@Override
+	public long getExecutedBatchCount() {
+		return executedBatchCount.get();
+	}
+
+	@Override
+	public long getErrorCount() {
+		return errorCount.get();
+	}
+
+	@Override
+	public long getRejectedRowCount() {
+		return rejectedRowCount.get();
+	}
+
+	@Override
+	public String[] getThreadStates() {
+		String[] states = new String[threadStates.length()];
+
+		for (int i = 0; i < states.length; i++) {
+			states[i] = String.format("Thread-%s: %s", i + 1, threadStates.get(i));
+		}
+
+		return states;
+	}
+
+	@Override
+	public int getBatchCount() {
+		return batchCount;
+	}
+
+	@Override
+	public void setBatchCount(int batchCount) {
+		if (batchCount <= 0) {
+			throw new IllegalArgumentException("The batch count must be greater than 0");
+		}
+
+		LOGGER.log(Level.INFO, String.format("Batch count set to %s", batchCount));
+		this.batchCount = batchCount;
+	}
+
+	@Override
+	public long getBatchBytes() {
+		return batchBytes;
+	}
+
+	@Override
+	public void setBatchBytes(long batchBytes) {
+		if (batchBytes <= 0) {
+			throw new IllegalArgumentException("The batch size must be greater than 0");
+		}
+
+		if (batchBytes > maxBatchBytes) {
+			LOGGER.log(Level.WARNING, String.format("Batch size of %s bytes exceeds the heap budget, limited to %s bytes",
+					batchBytes, maxBatchBytes));
+			batchBytes = maxBatchBytes;
+		}
+
+		LOGGER.log(Level.INFO, String.format("Batch size set to %s bytes", batchBytes));
+		this.batchBytes = batchBytes;
+	}
+
+	@Override
+	public int getActiveWorkerCount() {
+		return concurrencyController.getActiveWorkerCount();
+	}
+
+	@Override
+	public void setActiveWorkerCount(int activeWorkerCount) {
+		LOGGER.log(Level.INFO, String.format("Active worker count set to %s", activeWorkerCount));
+		concurrencyController.setActiveWorkerCount(activeWorkerCount);
+	}
+
+	@Override
+	public long getMaxRowsPerSecond() {
+		return rateLimiter.getMaxRowsPerSecond();
+	}
+
+	@Override
+	public void setMaxRowsPerSecond(long maxRowsPerSecond) {
+		rateLimiter.setMaxRowsPerSecond(maxRowsPerSecond);
+	}
+
+	@Override
+	public long getMaxBytesPerSecond() {
+		return rateLimiter.getMaxBytesPerSecond();
+	}
+
+	@Override
+	public void setMaxBytesPerSecond(long maxBytesPerSecond) {
+		rateLimiter.setMaxBytesPerSecond(maxBytesPerSecond);
+	}
+}
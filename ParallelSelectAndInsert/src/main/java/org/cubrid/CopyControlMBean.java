@@ -0,0 +1,35 @@
+package org.cubrid;
+
+public interface CopyControlMBean {
+	long getTotalRowCount();
+
+	long getCopiedRowCount();
+
+	long getExecutedBatchCount();
+
+	long getErrorCount();
+
+	long getRejectedRowCount();
+
+	String[] getThreadStates();
+
+	int getBatchCount();
+
+	void setBatchCount(int batchCount);
+
+	long getBatchBytes();
+
+	void setBatchBytes(long batchBytes);
+
+	int getActiveWorkerCount();
+
+	void setActiveWorkerCount(int activeWorkerCount);
+
+	long getMaxRowsPerSecond();
+
+	void setMaxRowsPerSecond(long maxRowsPerSecond);
+
+	long getMaxBytesPerSecond();
+
+	void setMaxBytesPerSecond(long maxBytesPerSecond);
+}
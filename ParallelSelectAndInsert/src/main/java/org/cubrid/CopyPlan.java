@@ -0,0 +1,273 @@
+package org.cubrid;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CopyPlan {
+	private String sourceTableName;
+	private String destinationTableName;
+	private long rowCount;
+	private int sampleRowCount;
+	private long averageRowBytes;
+	private int lobColumnCount;
+	private String sourceIndexFirstColumnName;
+	private String minKeyValue;
+	private String maxKeyValue;
+	private int destinationIndexCount;
+	private boolean isCreateTable;
+	private boolean isServerSide;
+	private List<Long> partitionOffsetList;
+	private int numDestinations;
+	private int maxThreads;
+	private int numThreads;
+	private int numChunks;
+	private long rowCountPerChunk;
+	private int batchCount;
+	private long batchBytes;
+	private int fetchSize;
+	private long estimatedRowsPerSecond;
+	private long estimatedSeconds;
+	private List<String> noteList;
+
+	public CopyPlan() {
+		this.noteList = new ArrayList<String>();
+	}
+
+	public String getSourceTableName() {
+		return sourceTableName;
+	}
+
+	public void setSourceTableName(String sourceTableName) {
+		this.sourceTableName = sourceTableName;
+	}
+
+	public String getDestinationTableName() {
+		return destinationTableName;
+	}
+
+	public void setDestinationTableName(String destinationTableName) {
+		this.destinationTableName = destinationTableName;
+	}
+
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	public void setRowCount(long rowCount) {
+		this.rowCount = rowCount;
+	}
+
+	public int getSampleRowCount() {
+		return sampleRowCount;
+	}
+
+	public void setSampleRowCount(int sampleRowCount) {
+		this.sampleRowCount = sampleRowCount;
+	}
+
+	public long getAverageRowBytes() {
+		return averageRowBytes;
+	}
+
+	public void setAverageRowBytes(long averageRowBytes) {
+		this.averageRowBytes = averageRowBytes;
+	}
+
+	public int getLobColumnCount() {
+		return lobColumnCount;
+	}
+
+	public void setLobColumnCount(int lobColumnCount) {
+		this.lobColumnCount = lobColumnCount;
+	}
+
+	public String getSourceIndexFirstColumnName() {
+		return sourceIndexFirstColumnName;
+	}
+
+	public void setSourceIndexFirstColumnName(String sourceIndexFirstColumnName) {
+		this.sourceIndexFirstColumnName = sourceIndexFirstColumnName;
+	}
+
+	public String getMinKeyValue() {
+		return minKeyValue;
+	}
+
+	public void setMinKeyValue(String minKeyValue) {
+		this.minKeyValue = minKeyValue;
+	}
+
+	public String getMaxKeyValue() {
+		return maxKeyValue;
+	}
+
+	public void setMaxKeyValue(String maxKeyValue) {
+		this.maxKeyValue = maxKeyValue;
+	}
+
+	public int getDestinationIndexCount() {
+		return destinationIndexCount;
+	}
+
+	public void setDestinationIndexCount(int destinationIndexCount) {
+		this.destinationIndexCount = destinationIndexCount;
+	}
+
+	public boolean isCreateTable() {
+		return isCreateTable;
+	}
+
+	public void setCreateTable(boolean isCreateTable) {
+		this.isCreateTable = isCreateTable;
+	}
+
+	public boolean isServerSide() {
+		return isServerSide;
+	}
+
+	/* Whether the chunks are copied by 'INSERT ... SELECT' in the destination database. */
+	public void setServerSide(boolean isServerSide) {
+		this.isServerSide = isServerSide;
+	}
+
+	public List<Long> getPartitionOffsetList() {
+		return partitionOffsetList;
+	}
+
+	/* Where each range partition of the destination begins in the source index order, or null. */
+	public void setPartitionOffsetList(List<Long> partitionOffsetList) {
+		this.partitionOffsetList = partitionOffsetList;
+	}
+
+	public int getNumDestinations() {
+		return numDestinations;
+	}
+
+	public void setNumDestinations(int numDestinations) {
+		this.numDestinations = numDestinations;
+	}
+
+	public int getMaxThreads() {
+		return maxThreads;
+	}
+
+	public void setMaxThreads(int maxThreads) {
+		this.maxThreads = maxThreads;
+	}
+
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+
+	public int getNumChunks() {
+		return numChunks;
+	}
+
+	public void setNumChunks(int numChunks) {
+		this.numChunks = numChunks;
+	}
+
+	public long getRowCountPerChunk() {
+		return rowCountPerChunk;
+	}
+
+	public void setRowCountPerChunk(long rowCountPerChunk) {
+		this.rowCountPerChunk = rowCountPerChunk;
+	}
+
+	public int getBatchCount() {
+		return batchCount;
+	}
+
+	public void setBatchCount(int batchCount) {
+		this.batchCount = batchCount;
+	}
+
+	public long getBatchBytes() {
+		return batchBytes;
+	}
+
+	public void setBatchBytes(long batchBytes) {
+		this.batchBytes = batchBytes;
+	}
+
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	public long getEstimatedRowsPerSecond() {
+		return estimatedRowsPerSecond;
+	}
+
+	public void setEstimatedRowsPerSecond(long estimatedRowsPerSecond) {
+		this.estimatedRowsPerSecond = estimatedRowsPerSecond;
+	}
+
+	public long getEstimatedSeconds() {
+		return estimatedSeconds;
+	}
+
+	public void setEstimatedSeconds(long estimatedSeconds) {
+		this.estimatedSeconds = estimatedSeconds;
+	}
+
+	public List<String> getNoteList() {
+		return noteList;
+	}
+
+	public void addNote(String note) {
+		noteList.add(note);
+	}
+
+	public String explain() {
+		StringBuilder explain = new StringBuilder();
+
+		explain.append(String.format("Copy plan for %s -> %s%n", sourceTableName, destinationTableName));
+		explain.append(String.format("  Source rows            : %d%n", rowCount));
+		explain.append(String.format("  Sampled rows           : %d, about %d bytes per row, %d LOB columns%n",
+				sampleRowCount, averageRowBytes, lobColumnCount));
+
+		if (sourceIndexFirstColumnName != null) {
+			explain.append(String.format("  Source index column    : %s, from %s to %s%n", sourceIndexFirstColumnName,
+					minKeyValue, maxKeyValue));
+		} else {
+			explain.append(String.format("  Source index column    : none%n"));
+		}
+
+		if (isCreateTable) {
+			explain.append(String.format("  Destination indexes    : created after the copy%n"));
+		} else {
+			explain.append(String.format("  Destination indexes    : %d%n", destinationIndexCount));
+		}
+
+		if (partitionOffsetList != null) {
+			explain.append(String.format("  Destination partitions : %d by range on the source index column%n",
+					partitionOffsetList.size() - 1));
+		}
+
+		explain.append(String.format("  Copied                 : %s%n",
+				isServerSide ? "on the server by INSERT ... SELECT" : "through the client"));
+		explain.append(String.format("  Destinations           : %d%n", numDestinations));
+		explain.append(String.format("  Threads                : %d (at most %d)%n", numThreads, maxThreads));
+		explain.append(String.format("  Chunks                 : %d of about %d rows%n", numChunks, rowCountPerChunk));
+		explain.append(String.format("  Batch                  : %d rows or %d bytes%n", batchCount, batchBytes));
+		explain.append(String.format("  Fetch size             : %d%n", fetchSize));
+		explain.append(String.format("  Estimated throughput   : %d rows per second%n", estimatedRowsPerSecond));
+		explain.append(String.format("  Estimated time         : %02d:%02d:%02d%n", estimatedSeconds / 3600,
+				(estimatedSeconds % 3600) / 60, estimatedSeconds % 60));
+
+		for (String note : noteList) {
+			explain.append(String.format("  Note: %s%n", note));
+		}
+
+		return explain.toString();
+	}
+}
@@ -0,0 +1,277 @@
+package org.cubrid;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+
+/*-
+ * Decides how a table is copied before anything is written, from the source row count,
+ * a sample of the rows, the usable source index and the destination indexes.
+ *
+ * The thread count is limited by the destination connections and by the heap budget.
+ * Without a usable index, the table is read by a single scan and only the writes use the threads.
+ * The batch and fetch sizes are the largest that keep a thread's batches within its share of the heap budget.
+ *
+ * The estimated time is rough. The read rate is measured on the sample,
+ * but the write rate is a fixed assumption that every destination index slows down.
+ */
+public class CopyPlanner {
+	public static final int SAMPLE_ROW_COUNT = 1000;
+
+	/* Fewer rows than this are not worth another thread and its connections. */
+	public static final long MIN_ROWS_PER_THREAD = 50000;
+
+	/* A batch smaller than this spends more time on round trips than on rows. */
+	public static final int MIN_BATCH_COUNT = 100;
+
+	public static final long ESTIMATED_WRITE_BYTES_PER_SECOND_PER_THREAD = 4L * 1024 * 1024;
+	public static final double ESTIMATED_WRITE_COST_PER_INDEX = 0.5;
+
+	private final ConnectionManager manager;
+	private boolean isServerSide;
+	private boolean isCreateTable;
+
+	public CopyPlanner(ConnectionManager manager) {
+		this.manager = manager;
+		this.isServerSide = false;
+		this.isCreateTable = false;
+
+		assert (manager != null);
+	}
+
+	/* Whether the copy will run on the server by 'INSERT ... SELECT', as decided by the caller's settings. */
+	public void setServerSide(boolean isServerSide) {
+		this.isServerSide = isServerSide;
+	}
+
+	/* Whether the destination table will be created, so that it has no indexes or partitions to plan around. */
+	public void setCreateTable(boolean isCreateTable) {
+		this.isCreateTable = isCreateTable;
+	}
+
+	/*-
+	 * Plans the copy. If requestedNumThreads is greater than 0, it is used as the thread count
+	 * instead of the planned one, but still limited by the destination connections.
+	 */
+	public CopyPlan plan(String sourceTableName, String destinationTableName, int requestedNumThreads,
+			boolean isAutoTune, long batchBytes, long heapBudget)
+			throws ClassNotFoundException, IOException, SQLException {
+		CopyPlan plan = new CopyPlan();
+		plan.setSourceTableName(sourceTableName);
+		plan.setDestinationTableName(destinationTableName);
+		plan.setServerSide(isServerSide);
+		plan.setCreateTable(isCreateTable);
+
+		try (Connection sourceConnection = manager.getSourceConnection()) {
+			sourceConnection.setAutoCommit(false);
+
+			plan.setRowCount(manager.getTableRowCount(sourceConnection, sourceTableName));
+
+			String sourceIndexFirstColumnName = manager.getFirstColumnOfUsableIndex(sourceConnection,
+					sourceTableName);
+			plan.setSourceIndexFirstColumnName(sourceIndexFirstColumnName);
+
+			if (sourceIndexFirstColumnName != null) {
+				String[] keyRange = manager.getColumnRange(sourceConnection, sourceTableName,
+						sourceIndexFirstColumnName);
+				plan.setMinKeyValue(keyRange[0]);
+				plan.setMaxKeyValue(keyRange[1]);
+
+				if (!isCreateTable) {
+					plan.setPartitionOffsetList(manager.getPartitionOffsets(sourceConnection, sourceTableName,
+							destinationTableName, sourceIndexFirstColumnName, plan.getRowCount()));
+				}
+			}
+
+			sampleRows(sourceConnection, plan);
+
+			/* Only reads were made. */
+			sourceConnection.rollback();
+		}
+
+		/* A created table gets its indexes after the copy, so the rows are written without them. */
+		if (!isCreateTable) {
+			try (Connection destinationConnection = manager.getDestinationConnection()) {
+				plan.setDestinationIndexCount(manager.getIndexCount(destinationConnection, destinationTableName));
+				destinationConnection.rollback();
+			}
+		}
+
+		plan.setNumDestinations(manager.getDestinationCount());
+		plan.setMaxThreads(Math.max(1, manager.getDestinationMaxConnections()));
+
+		planThreads(plan, requestedNumThreads, heapBudget);
+		planChunks(plan, isAutoTune);
+		planBatches(plan, batchBytes, heapBudget, manager.getSourceDialect());
+		estimateTime(plan, manager.getSourceMaxRowsPerSecond(), manager.getSourceMaxBytesPerSecond());
+
+		return plan;
+	}
+
+	private void sampleRows(Connection sourceConnection, CopyPlan plan) throws IOException, SQLException {
+		String fetchSourceRecordsQuery = manager.getSourceDialect()
+				.getFetchSourceRecordsQuery(plan.getSourceTableName(), plan.getSourceIndexFirstColumnName());
+
+		long startNanos = System.nanoTime();
+		int sampleRowCount = 0;
+		long sampleBytes = 0;
+
+		try (PreparedStatement statement = sourceConnection.prepareStatement(fetchSourceRecordsQuery)) {
+			statement.setLong(1, 0);
+			statement.setLong(2, SAMPLE_ROW_COUNT);
+
+			try (ResultSet resultSet = statement.executeQuery()) {
+				ResultSetMetaData metadata = resultSet.getMetaData();
+				int columnCount = metadata.getColumnCount();
+
+				int[] lobColumnIndexes = LobStreamer.getLobColumnIndexes(metadata);
+				plan.setLobColumnCount(lobColumnIndexes != null ? lobColumnIndexes.length : 0);
+
+				while (resultSet.next()) {
+					for (int i = 0; i < columnCount; i++) {
+						sampleBytes += RowSizeEstimator.estimateSize(resultSet.getObject(i + 1));
+					}
+
+					sampleRowCount++;
+				}
+			} catch (SQLException e) { /* resultSet */
+				throw e;
+			}
+		} catch (SQLException e) { /* statement */
+			throw e;
+		}
+
+		long elapsedNanos = Math.max(1, System.nanoTime() - startNanos);
+
+		plan.setSampleRowCount(sampleRowCount);
+		plan.setAverageRowBytes(sampleRowCount > 0 ? Math.max(1, sampleBytes / sampleRowCount) : 1);
+
+		/* The rows per second one thread reads, kept for the estimate. */
+		plan.setEstimatedRowsPerSecond(sampleRowCount * 1000000000L / elapsedNanos);
+	}
+
+	private void planThreads(CopyPlan plan, int requestedNumThreads, long heapBudget) {
+		int maxThreads = plan.getMaxThreads();
+
+		if (requestedNumThreads > 0) {
+			if (requestedNumThreads > maxThreads) {
+				plan.addNote(String.format("The requested %d threads exceed the destination connections",
+						requestedNumThreads));
+			}
+
+			plan.setNumThreads(Math.min(requestedNumThreads, maxThreads));
+			limitThreads(plan);
+			return;
+		}
+
+		long numThreads = Math.max(1, plan.getRowCount() / MIN_ROWS_PER_THREAD);
+		numThreads = Math.min(numThreads, maxThreads);
+
+		/* Every thread should still be able to buffer batches of at least the minimum size. */
+		long minThreadBytes = plan.getAverageRowBytes() * MIN_BATCH_COUNT * CopyTask.BUFFERED_BATCH_COUNT;
+		long maxThreadsForHeap = Math.max(1, heapBudget / minThreadBytes);
+		if (numThreads > maxThreadsForHeap) {
+			numThreads = maxThreadsForHeap;
+			plan.addNote("The thread count is limited by the heap budget");
+		}
+
+		plan.setNumThreads((int) numThreads);
+		limitThreads(plan);
+	}
+
+	/* Limits the threads to what the copy mode can use, as the copy does. */
+	private void limitThreads(CopyPlan plan) {
+		if (plan.getSourceIndexFirstColumnName() == null && plan.isServerSide()) {
+			plan.setNumThreads(1);
+			plan.addNote("The source table has no usable index, so it is copied by one INSERT ... SELECT");
+		}
+	}
+
+	private void planChunks(CopyPlan plan, boolean isAutoTune) {
+		if (plan.getSourceIndexFirstColumnName() == null && plan.isServerSide()) {
+			plan.setNumChunks(1);
+			plan.setRowCountPerChunk(plan.getRowCount());
+			return;
+		}
+
+		if (plan.getSourceIndexFirstColumnName() == null) {
+			plan.setNumChunks(1);
+			plan.setRowCountPerChunk(plan.getRowCount());
+			plan.addNote(String.format("The source table has no usable index, so it is read by one scan for %d writers",
+					plan.getNumThreads()));
+			return;
+		}
+
+		int numChunks = plan.getNumThreads();
+		if (isAutoTune) {
+			numChunks = plan.getNumThreads() * ParallelSelectAndInsert.AUTO_TUNE_CHUNKS_PER_THREAD;
+		}
+
+		/* Partitions are split into chunks of the same size, so that no chunk crosses a partition boundary. */
+		List<Long> partitionOffsetList = plan.getPartitionOffsetList();
+		if (partitionOffsetList != null) {
+			long maxRowCountPerChunk = (plan.getRowCount() + numChunks - 1) / numChunks;
+			List<CopyChunk> chunkList = ParallelSelectAndInsert.getPartitionChunks(partitionOffsetList,
+					maxRowCountPerChunk);
+
+			plan.setNumChunks(chunkList.size());
+			plan.setRowCountPerChunk(maxRowCountPerChunk);
+
+			if (chunkList.size() < plan.getNumThreads()) {
+				plan.setNumThreads(chunkList.size());
+				plan.addNote("The thread count is limited by the chunks of the destination partitions");
+			}
+
+			return;
+		}
+
+		plan.setNumChunks(numChunks);
+		plan.setRowCountPerChunk(plan.getRowCount() / numChunks);
+	}
+
+	private void planBatches(CopyPlan plan, long batchBytes, long heapBudget, Dialect sourceDialect) {
+		long batchBytesPerThread = ParallelSelectAndInsert.getBatchBytesPerThread(batchBytes, heapBudget,
+				plan.getNumThreads());
+
+		long batchCount = batchBytesPerThread / plan.getAverageRowBytes();
+		batchCount = Math.min(batchCount, ParallelSelectAndInsert.DEFAULT_BATCH_COUNT);
+		batchCount = Math.max(batchCount, 1);
+
+		plan.setBatchBytes(batchBytesPerThread);
+		plan.setBatchCount((int) batchCount);
+
+		/* A fetch brings in one batch, so the reader and the writers work in the same units. */
+		plan.setFetchSize(sourceDialect.getFetchSize((int) batchCount));
+	}
+
+	private void estimateTime(CopyPlan plan, long maxRowsPerSecond, long maxBytesPerSecond) {
+		long readRowsPerSecond = Math.max(1, plan.getEstimatedRowsPerSecond());
+		double writeCost = 1 + ESTIMATED_WRITE_COST_PER_INDEX * plan.getDestinationIndexCount();
+		long writeRowsPerSecond = Math.max(1,
+				(long) (ESTIMATED_WRITE_BYTES_PER_SECOND_PER_THREAD / plan.getAverageRowBytes() / writeCost));
+
+		long rowsPerSecond = Math.min(readRowsPerSecond, writeRowsPerSecond) * plan.getNumThreads();
+
+		/* A single scan reads at the rate of one thread, however many threads write. */
+		if (plan.getSourceIndexFirstColumnName() == null) {
+			rowsPerSecond = Math.min(readRowsPerSecond, writeRowsPerSecond * plan.getNumThreads());
+		}
+
+		if (maxRowsPerSecond > 0 && rowsPerSecond > maxRowsPerSecond) {
+			rowsPerSecond = maxRowsPerSecond;
+			plan.addNote("The estimate is limited by SourceMaxRowsPerSecond");
+		}
+
+		if (maxBytesPerSecond > 0 && rowsPerSecond * plan.getAverageRowBytes() > maxBytesPerSecond) {
+			rowsPerSecond = Math.max(1, maxBytesPerSecond / plan.getAverageRowBytes());
+			plan.addNote("The estimate is limited by SourceMaxBytesPerSecond");
+		}
+
+		plan.setEstimatedRowsPerSecond(rowsPerSecond);
+		plan.setEstimatedSeconds(plan.getRowCount() / rowsPerSecond);
+	}
+}
@@ -1,107 +1,590 @@
 package org.cubrid;
 
-import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class CopyTask implements Callable<Void> {
+	private static final Logger LOGGER = Logger.getLogger(CopyTask.class.getName());
+
+	public static final long INITIAL_RETRY_BACKOFF_MILLIS = 1000;
+	public static final long MAX_RETRY_BACKOFF_MILLIS = 60000;
+
+	/* The number of batches a copy task can have in flight, including the one being filled. */
+	public static final int BUFFERED_BATCH_COUNT = 4;
+
+	/* The rows read between two calls to the rate limiter, so that the source is read at a steady rate. */
+	private static final int RATE_LIMIT_ROW_COUNT = 64;
+
 	private int threadNum;
 	private Connection sourceConnection;
 	private String sourceTableName;
+	private Dialect sourceDialect;
 	private String sourceIndexFirstColumnName;
-	private long offset;
-	private long rowCount;
-	private Connection destinationConnection;
+	private Queue<CopyChunk> chunkQueue;
+	private List<Connection> destinationConnectionList;
+	private List<ExecutorService> writerExecutorServiceList;
 	private String destinationTableName;
-	private int batchCount;
+	private List<Dialect> destinationDialectList;
+	private WriteMode writeMode;
+	private List<String> destinationKeyColumnNameList;
 	private ProgressBarTask progressBar;
+	private ConcurrencyController concurrencyController;
+	private RateLimiter rateLimiter;
+	private ShardRouter shardRouter;
+	private CopyControl copyControl;
+	private RejectWriter rejectWriter;
+	private BranchRecovery branchRecovery;
+	private int maxRetryCount;
+	private int fetchSize;
+	private int writerLaneCount;
+	private boolean isServerSide;
+
+	private List<BatchWriter> batchWriterList;
+	private BlockingQueue<RowBatch> freeBatchQueue;
+	private int[] columnTypes;
+	private ColumnDictionary[] columnDictionaries;
+	private int shardColumnIndex;
+	private int nextWriterLane;
 
-	private long addBatchCount;
-	private long executeBatchCount;
+	/* The chunks written to the current branches, which must be copied again if the branches are rolled back. */
+	private List<CopyChunk> branchChunkList;
+	private CopyChunk currentChunk;
+	private long branchStartProgress;
+	private long branchTotalCorrection;
+	private boolean isSourceFailure;
 
 	public CopyTask(CopyTaskInfo copyTaskInfo) {
 		this.threadNum = copyTaskInfo.getThreadNum();
 		this.sourceConnection = copyTaskInfo.getSourceConnection();
 		this.sourceTableName = copyTaskInfo.getSourceTableName();
+		this.sourceDialect = copyTaskInfo.getSourceDialect();
 		this.sourceIndexFirstColumnName = copyTaskInfo.getSourceIndexFirstColumnName();
-		this.offset = copyTaskInfo.getOffset();
-		this.rowCount = copyTaskInfo.getRowCount();
-		this.destinationConnection = copyTaskInfo.getDestinationConnection();
+		this.chunkQueue = copyTaskInfo.getChunkQueue();
+		this.destinationConnectionList = copyTaskInfo.getDestinationConnectionList();
+		this.writerExecutorServiceList = copyTaskInfo.getWriterExecutorServiceList();
 		this.destinationTableName = copyTaskInfo.getDestinationTableName();
-		this.batchCount = copyTaskInfo.getBatchCount();
+		this.destinationDialectList = copyTaskInfo.getDestinationDialectList();
+		this.writeMode = copyTaskInfo.getWriteMode();
+		this.destinationKeyColumnNameList = copyTaskInfo.getDestinationKeyColumnNameList();
 		this.progressBar = copyTaskInfo.getProgressBar();
+		this.concurrencyController = copyTaskInfo.getConcurrencyController();
+		this.rateLimiter = copyTaskInfo.getRateLimiter();
+		this.shardRouter = copyTaskInfo.getShardRouter();
+		this.copyControl = copyTaskInfo.getCopyControl();
+		this.rejectWriter = copyTaskInfo.getRejectWriter();
+		this.branchRecovery = copyTaskInfo.getBranchRecovery();
+		this.maxRetryCount = copyTaskInfo.getMaxRetryCount();
+		this.fetchSize = copyTaskInfo.getFetchSize();
+		this.writerLaneCount = Math.max(1, copyTaskInfo.getWriterLaneCount());
+		this.isServerSide = copyTaskInfo.isServerSide();
 
 		assert (sourceConnection != null);
 		assert (sourceTableName != null);
-		assert (offset > 0);
-		assert (rowCount > 0);
-		assert (destinationConnection != null);
+		assert (chunkQueue != null);
+		assert (destinationConnectionList != null && !destinationConnectionList.isEmpty());
+		assert (writerExecutorServiceList != null);
+		assert (writerExecutorServiceList.size() * writerLaneCount == destinationConnectionList.size());
 		assert (destinationTableName != null);
-		assert (batchCount > 0);
+		assert (copyControl != null);
+		assert (writeMode != null);
 
-		this.addBatchCount = 0;
-		this.executeBatchCount = 0;
+		this.batchWriterList = null;
+		this.freeBatchQueue = null;
+		this.columnTypes = null;
+		this.columnDictionaries = null;
+		this.shardColumnIndex = -1;
+		this.nextWriterLane = 0;
+
+		this.branchChunkList = new ArrayList<CopyChunk>();
+		this.currentChunk = null;
+		this.branchStartProgress = 0;
+		this.branchTotalCorrection = 0;
+		this.isSourceFailure = false;
 	}
 
 	@Override
-	public Void call() throws SQLException {
-		String fetchSourceRecordsQuery = ConnectionManager.getFetchSourceRecordsQuery(sourceTableName,
-				sourceIndexFirstColumnName);
+	public Void call() throws InterruptedException, SQLException {
+		int retryCount = 0;
+		boolean isRecovering = false;
+
+		while (true) {
+			try {
+				if (isRecovering) {
+					destinationConnectionList = recoverBranches();
+					branchStartProgress = progressBar.getProgressPerThread(threadNum);
+					isRecovering = false;
+				}
+
+				isSourceFailure = false;
+
+				if (isServerSide) {
+					copyChunks();
+				} else {
+					copyWithBatchWriters();
+				}
+				break;
+			} catch (SQLException e) {
+				copyControl.addError();
+
+				/*-
+				 * The branches are only committed at the end, so the retries are counted for the whole copy,
+				 * and a destination that keeps failing cannot be retried forever.
+				 * The shared source connection is not reopened, so a failure on it is not retried.
+				 */
+				if (branchRecovery == null || retryCount >= maxRetryCount || isSourceFailure
+						|| !SQLErrorClassifier.isTransientError(e)) {
+					fail();
+					throw e;
+				}
+
+				retryCount++;
+				long backoffMillis = Math.min(MAX_RETRY_BACKOFF_MILLIS,
+						INITIAL_RETRY_BACKOFF_MILLIS << Math.min(retryCount - 1, 16));
+
+				LOGGER.log(Level.WARNING, String.format("Thread-%s failed, retrying %s of %s in %s ms: %s",
+						threadNum + 1, retryCount, maxRetryCount, backoffMillis, e.getMessage()));
+
+				requeueBranchChunks();
+				TimeUnit.MILLISECONDS.sleep(backoffMillis);
+				isRecovering = true;
+			} catch (InterruptedException | RuntimeException e) {
+				copyControl.addError();
+				fail();
+				throw e;
+			}
+		}
+
+		copyControl.setThreadState(threadNum, CopyControl.ThreadState.FINISHED);
+
+		return null;
+	}
+
+	private void fail() {
+		copyControl.setThreadState(threadNum, CopyControl.ThreadState.FAILED);
+
+		if (concurrencyController != null) {
+			concurrencyController.abort();
+		}
+	}
+
+	/*-
+	 * A copy task with several writer lanes owns the branches of that many threads,
+	 * the branches of lane k being the ones thread k would have had.
+	 */
+	private List<Connection> recoverBranches() throws SQLException {
+		if (writerLaneCount == 1) {
+			return branchRecovery.recoverBranches(threadNum);
+		}
+
+		List<Connection> connectionList = new ArrayList<Connection>(destinationConnectionList);
+
+		for (int i = 0; i < writerLaneCount; i++) {
+			List<Connection> laneConnectionList = branchRecovery.recoverBranches(threadNum * writerLaneCount + i);
+
+			for (int j = 0; j < laneConnectionList.size(); j++) {
+				connectionList.set(j * writerLaneCount + i, laneConnectionList.get(j));
+			}
+		}
+
+		return connectionList;
+	}
+
+	private void copyWithBatchWriters() throws InterruptedException, SQLException {
+		int numWriters = destinationConnectionList.size();
+
+		freeBatchQueue = new ArrayBlockingQueue<RowBatch>(getBufferedBatchCount());
+		batchWriterList = new ArrayList<BatchWriter>(numWriters);
+		columnTypes = null;
+		List<Future<Void>> writerFutureList = new ArrayList<Future<Void>>(numWriters);
+
+		/* The writers of destination j are at j * writerLaneCount, ..., (j + 1) * writerLaneCount - 1. */
+		for (int i = 0; i < numWriters; i++) {
+			int destinationNum = i / writerLaneCount;
+
+			BatchWriter batchWriter = new BatchWriter(threadNum, destinationNum, destinationConnectionList.get(i),
+					freeBatchQueue, getBufferedBatchCount(), progressBar, concurrencyController, copyControl);
+			batchWriter.setRejectWriter(rejectWriter);
+			batchWriterList.add(batchWriter);
+			writerFutureList.add(writerExecutorServiceList.get(destinationNum).submit(batchWriter));
+		}
+
+		try {
+			copyChunks();
+		} finally {
+			for (BatchWriter batchWriter : batchWriterList) {
+				batchWriter.finish();
+			}
+
+			for (Future<Void> writerFuture : writerFutureList) {
+				try {
+					writerFuture.get();
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof SQLException) {
+						throw (SQLException) e.getCause();
+					}
+
+					throw new SQLException(e.getCause());
+				}
+			}
+		}
+	}
+
+	/*-
+	 * Puts the chunks of the failed branches back into the queue
+	 * and takes back the progress reported for them, because their rows will be copied again.
+	 */
+	private void requeueBranchChunks() {
+		if (currentChunk != null) {
+			branchChunkList.add(currentChunk);
+			currentChunk = null;
+		}
+
+		for (CopyChunk chunk : branchChunkList) {
+			progressBar.addTotalPerThread(threadNum, -chunk.getRowCount());
+			chunkQueue.add(chunk);
+		}
+
+		branchChunkList.clear();
+
+		progressBar.addTotalPerThread(threadNum, -branchTotalCorrection);
+		branchTotalCorrection = 0;
+
+		long rolledBackRowCount = progressBar.getProgressPerThread(threadNum) - branchStartProgress;
+		progressBar.addProgressPerThread(threadNum, -rolledBackRowCount);
+		progressBar.addProgressOfMain(-rolledBackRowCount);
+		copyControl.addCopiedRows(-rolledBackRowCount);
+
+		branchStartProgress = progressBar.getProgressPerThread(threadNum);
+	}
+
+	private void copyChunks() throws InterruptedException, SQLException {
+		while (true) {
+			if (concurrencyController != null) {
+				if (threadNum >= concurrencyController.getActiveWorkerCount()) {
+					copyControl.setThreadState(threadNum, CopyControl.ThreadState.PARKED);
+				}
+
+				concurrencyController.awaitTurn(threadNum);
+
+				/* Another worker has failed, so the copy will be rolled back. */
+				if (concurrencyController.isAborted()) {
+					return;
+				}
+			}
+
+			copyControl.setThreadState(threadNum, CopyControl.ThreadState.RUNNING);
+
+			CopyChunk chunk = chunkQueue.poll();
+			if (chunk == null) {
+				if (concurrencyController != null) {
+					concurrencyController.stop();
+				}
+
+				return;
+			}
+
+			progressBar.addTotalPerThread(threadNum, chunk.getRowCount());
+
+			currentChunk = chunk;
+			if (isServerSide) {
+				copyChunkOnServer(chunk);
+			} else {
+				copyChunk(chunk);
+			}
+			branchChunkList.add(chunk);
+			currentChunk = null;
+		}
+	}
+
+	private void copyChunk(CopyChunk chunk) throws InterruptedException, SQLException {
+		String fetchSourceRecordsQuery = getFetchSourceRecordsQuery(chunk);
 
 		try (PreparedStatement sourceStatement = sourceConnection.prepareStatement(fetchSourceRecordsQuery)) {
-			sourceStatement.setLong(1, offset);
-			sourceStatement.setLong(2, rowCount);
+			bindChunkBounds(sourceStatement, chunk);
+
+			if (fetchSize > 0) {
+				sourceStatement.setFetchSize(fetchSize);
+			}
 
 			try (ResultSet resultSet = sourceStatement.executeQuery()) {
 				ResultSetMetaData metadata = resultSet.getMetaData();
-				int columnCount = metadata.getColumnCount();
 
-				String insertRecordToDestinationQuery = ConnectionManager
-						.getInsertRecordToDestinationQuery(destinationTableName, columnCount);
+				if (columnTypes == null) {
+					prepareBatchWriters(metadata);
+
+					columnTypes = getColumnTypes(metadata);
+					columnDictionaries = getColumnDictionaries(columnTypes);
+					for (int i = 0; i < getBufferedBatchCount(); i++) {
+						freeBatchQueue.add(new RowBatch(columnTypes, columnDictionaries, copyControl.getBatchCount()));
+					}
+
+					if (shardRouter != null) {
+						shardColumnIndex = shardRouter.getShardColumnIndex(metadata);
+					}
+				}
 
-				try (PreparedStatement destinationStatement = destinationConnection
-						.prepareStatement(insertRecordToDestinationQuery)) {
-					while (resultSet.next()) {
-						for (int i = 1; i <= columnCount; i++) {
-							destinationStatement.setObject(i, resultSet.getObject(i));
-						}
-						destinationStatement.addBatch();
-						addBatchCount++;
+				/*-
+				 * Without a shard router, a single batch is filled and shared by every destination.
+				 * With one, each destination has its own batch, and the shard key of a row is read
+				 * to decide which batch the row is read into.
+				 */
+				RowBatch[] rowBatches = new RowBatch[getFillingBatchCount()];
+				long readRowCount = 0;
+				long unpacedRowCount = 0;
+				long unpacedBytes = 0;
 
-						if (addBatchCount == batchCount) {
-							destinationStatement.executeBatch();
-							executeBatchCount += addBatchCount;
+				while (resultSet.next()) {
+					readRowCount++;
 
-							progressBar.setProgressPerThread(threadNum, executeBatchCount);
-							progressBar.addProgressOfMain(addBatchCount);
+					int batchNum = 0;
+					if (shardRouter != null) {
+						batchNum = shardRouter.route(resultSet.getObject(shardColumnIndex + 1));
+					}
 
-							addBatchCount = 0;
-						}
+					if (rowBatches[batchNum] == null) {
+						rowBatches[batchNum] = freeBatchQueue.take();
+						rowBatches[batchNum].startFetch();
 					}
 
-					if (addBatchCount != 0) {
-						destinationStatement.executeBatch();
-						executeBatchCount += addBatchCount;
+					RowBatch rowBatch = rowBatches[batchNum];
+					long bytes = rowBatch.getBytes();
+					rowBatch.addRow(resultSet);
 
-						progressBar.setProgressPerThread(threadNum, executeBatchCount);
-						progressBar.addProgressOfMain(addBatchCount);
+					/* The next rows are not read until the rows read so far fit in the rate limits. */
+					unpacedRowCount++;
+					unpacedBytes += rowBatch.getBytes() - bytes;
+					if (unpacedRowCount >= RATE_LIMIT_ROW_COUNT) {
+						pace(unpacedRowCount, unpacedBytes);
+						unpacedRowCount = 0;
+						unpacedBytes = 0;
+					}
 
-						addBatchCount = 0;
+					/* The limits are read for every row, so that changes made over JMX apply to the current batch. */
+					if (rowBatch.size() >= copyControl.getBatchCount()
+							|| rowBatch.getBytes() >= copyControl.getBatchBytes()) {
+						submitBatch(rowBatch, batchNum);
+						rowBatches[batchNum] = null;
+					}
+				}
+
+				pace(unpacedRowCount, unpacedBytes);
+
+				for (int i = 0; i < rowBatches.length; i++) {
+					if (rowBatches[i] != null) {
+						submitBatch(rowBatches[i], i);
 					}
-				} catch (SQLException e) { /* destinationStatement */
-					throw e;
 				}
+
+				/* The chunk was moved to key boundaries, so the total of the thread is corrected to what it read. */
+				correctTotal(readRowCount - chunk.getRowCount());
 			} catch (SQLException e) { /* resultSet */
 				throw e;
 			}
 		} catch (SQLException e) { /* sourceStatement */
+			isSourceFailure = !isWriterFailure(e);
 			throw e;
 		}
+	}
+
+	/* Whether the failure was reported by a writer, rather than raised by reading the source. */
+	private boolean isWriterFailure(SQLException e) {
+		for (BatchWriter batchWriter : batchWriterList) {
+			if (batchWriter.isFailure(e)) {
+				return true;
+			}
+		}
 
-		return null;
+		return false;
+	}
+
+	/*-
+	 * Copies the chunk by one 'INSERT ... SELECT' on the branch of the first writer,
+	 * so it is committed with the branch as the batches are.
+	 *
+	 * The rows do not pass through the rate limiter: the copy is only server-side when no limit was set,
+	 * and a limit set later over JMX applies to client copies only. Parking workers still slows it between chunks.
+	 */
+	private void copyChunkOnServer(CopyChunk chunk) throws SQLException {
+		String insertSelectQuery = destinationDialectList.get(0).getInsertSelectQuery(destinationTableName,
+				getFetchSourceRecordsQuery(chunk));
+
+		try (PreparedStatement destinationStatement = destinationConnectionList.get(0)
+				.prepareStatement(insertSelectQuery)) {
+			bindChunkBounds(destinationStatement, chunk);
+
+			int rowCount = destinationStatement.executeUpdate();
+
+			/*-
+			 * The statement runs in the snapshot of the branch, not of the source connection that counted the rows,
+			 * and the chunk was moved to key boundaries, so the total of the thread is corrected to what it copied.
+			 */
+			correctTotal(rowCount - chunk.getRowCount());
+
+			progressBar.addProgressPerThread(threadNum, rowCount);
+			progressBar.addProgressOfMain(rowCount);
+			copyControl.addCopiedRows(rowCount);
+			copyControl.addExecutedBatch();
+		} catch (SQLException e) { /* destinationStatement */
+			throw e;
+		}
+	}
+
+	/*-
+	 * With a usable index, a chunk is read by its key range, which the server seeks to,
+	 * rather than by 'LIMIT', which reads and skips every row before the chunk.
+	 * Without one, the table is read as a single chunk by one streaming scan.
+	 */
+	private String getFetchSourceRecordsQuery(CopyChunk chunk) {
+		if (sourceIndexFirstColumnName != null) {
+			return sourceDialect.getFetchSourceRecordsInRangeQuery(sourceTableName, sourceIndexFirstColumnName,
+					chunk.getLowerBound() != null, chunk.getUpperBound() != null);
+		}
+
+		return sourceDialect.getScanSourceRecordsQuery(sourceTableName);
+	}
+
+	private void bindChunkBounds(PreparedStatement statement, CopyChunk chunk) throws SQLException {
+		int parameterIndex = 1;
+
+		if (chunk.getLowerBound() != null) {
+			statement.setObject(parameterIndex++, chunk.getLowerBound());
+		}
+
+		if (chunk.getUpperBound() != null) {
+			statement.setObject(parameterIndex++, chunk.getUpperBound());
+		}
+	}
+
+	/* The correction is taken back with the chunks of the branch if the branch is rolled back. */
+	private void correctTotal(long rowCountDifference) {
+		progressBar.addTotalPerThread(threadNum, rowCountDifference);
+		branchTotalCorrection += rowCountDifference;
+	}
+
+	private void prepareBatchWriters(ResultSetMetaData metadata) throws SQLException {
+		int columnCount = metadata.getColumnCount();
+
+		List<String> columnNameList = new ArrayList<String>(columnCount);
+		for (int i = 1; i <= columnCount; i++) {
+			columnNameList.add(metadata.getColumnName(i));
+		}
+
+		int[] lobColumnIndexes = LobStreamer.getLobColumnIndexes(metadata);
+
+		for (int i = 0; i < batchWriterList.size(); i++) {
+			Dialect destinationDialect = destinationDialectList.get(i / writerLaneCount);
+
+			String insertRecordToDestinationQuery = null;
+			int[] updateColumnIndexes = null;
+
+			if (writeMode == WriteMode.UPSERT) {
+				insertRecordToDestinationQuery = destinationDialect.getUpsertRecordToDestinationQuery(
+						destinationTableName, columnNameList, destinationKeyColumnNameList);
+				updateColumnIndexes = destinationDialect.getUpsertUpdateColumnIndexes(columnNameList,
+						destinationKeyColumnNameList);
+			} else {
+				insertRecordToDestinationQuery = destinationDialect
+						.getInsertRecordToDestinationQuery(destinationTableName, columnCount);
+			}
+
+			BatchWriter batchWriter = batchWriterList.get(i);
+			batchWriter.setInsertRecordToDestinationQuery(insertRecordToDestinationQuery, updateColumnIndexes);
+			batchWriter.setLobColumnIndexes(lobColumnIndexes);
+		}
+	}
+
+	private int[] getColumnTypes(ResultSetMetaData metadata) throws SQLException {
+		int columnCount = metadata.getColumnCount();
+		int[] types = new int[columnCount];
+
+		for (int i = 0; i < columnCount; i++) {
+			types[i] = metadata.getColumnType(i + 1);
+		}
+
+		return types;
+	}
+
+	/*-
+	 * Short character columns often repeat a few values, such as sd_nm or sgg_nm, so each gets a dictionary
+	 * shared by all the batches of this copy task. A dictionary turns itself off for a column with many values.
+	 */
+	private ColumnDictionary[] getColumnDictionaries(int[] types) {
+		ColumnDictionary[] dictionaries = new ColumnDictionary[types.length];
+
+		for (int i = 0; i < types.length; i++) {
+			switch (types[i]) {
+			case Types.CHAR:
+			case Types.VARCHAR:
+			case Types.NCHAR:
+			case Types.NVARCHAR:
+				dictionaries[i] = new ColumnDictionary();
+				break;
+			default:
+				dictionaries[i] = null;
+				break;
+			}
+		}
+
+		return dictionaries;
+	}
+
+	/* Only one batch is filled at a time unless the rows are routed to different destinations. */
+	private int getFillingBatchCount() {
+		if (shardRouter == null) {
+			return 1;
+		}
+
+		return destinationConnectionList.size() / writerLaneCount;
+	}
+
+	/* Every writer lane gets its own share of buffered batches, so that the lanes are kept busy. */
+	private int getBufferedBatchCount() {
+		return BUFFERED_BATCH_COUNT * writerLaneCount + getFillingBatchCount() - 1;
+	}
+
+	/*-
+	 * Hands a shared batch to the writers of every destination, or a routed batch to its destination's writer.
+	 * With several writer lanes, the batches take turns among the lanes.
+	 */
+	private void pace(long rowCount, long bytes) throws InterruptedException {
+		if (rateLimiter != null && rowCount > 0) {
+			rateLimiter.acquire(rowCount, bytes);
+		}
+	}
+
+	private void submitBatch(RowBatch rowBatch, int batchNum) throws InterruptedException, SQLException {
+		rowBatch.finishFetch();
+
+		int writerLane = nextWriterLane;
+		nextWriterLane = (nextWriterLane + 1) % writerLaneCount;
+
+		if (shardRouter != null) {
+			rowBatch.retain(1);
+			batchWriterList.get(batchNum * writerLaneCount + writerLane).submit(rowBatch);
+			return;
+		}
+
+		int numDestinations = batchWriterList.size() / writerLaneCount;
+		rowBatch.retain(numDestinations);
+
+		for (int i = 0; i < numDestinations; i++) {
+			batchWriterList.get(i * writerLaneCount + writerLane).submit(rowBatch);
+		}
 	}
-}
\ No newline at end of file
+}
@@ -1,19 +1,35 @@
 package org.cubrid;
 
 import java.sql.Connection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
 
 public class CopyTaskInfo {
 	private int threadNum;
 	private Connection sourceConnection;
 	private String sourceTableName;
+	private Dialect sourceDialect;
 	private String sourceIndexFirstColumnName;
-	private long offset;
-	private long rowCount;
-	private Connection destinationConnection;
+	private Queue<CopyChunk> chunkQueue;
+	private List<Connection> destinationConnectionList;
+	private List<ExecutorService> writerExecutorServiceList;
 	private String destinationTableName;
-	private int batchCount;
+	private List<Dialect> destinationDialectList;
+	private WriteMode writeMode;
+	private List<String> destinationKeyColumnNameList;
 	
 	private ProgressBarTask progressBar;
+	private ConcurrencyController concurrencyController;
+	private RateLimiter rateLimiter;
+	private ShardRouter shardRouter;
+	private CopyControl copyControl;
+	private RejectWriter rejectWriter;
+	private BranchRecovery branchRecovery;
+	private int maxRetryCount;
+	private int fetchSize;
+	private int writerLaneCount;
+	private boolean isServerSide;
 	
 	public int getThreadNum() {
 		return threadNum;
@@ -47,28 +63,28 @@ public class CopyTaskInfo {
 		this.sourceIndexFirstColumnName = sourceIndexFirstColumnName;
 	}
 
-	public long getOffset() {
-		return offset;
+	public Queue<CopyChunk> getChunkQueue() {
+		return chunkQueue;
 	}
 
-	public void setOffset(long offset) {
-		this.offset = offset;
+	public void setChunkQueue(Queue<CopyChunk> chunkQueue) {
+		this.chunkQueue = chunkQueue;
 	}
 
-	public long getRowCount() {
-		return rowCount;
+	public List<Connection> getDestinationConnectionList() {
+		return destinationConnectionList;
 	}
 
-	public void setRowCount(long rowCount) {
-		this.rowCount = rowCount;
+	public void setDestinationConnectionList(List<Connection> destinationConnectionList) {
+		this.destinationConnectionList = destinationConnectionList;
 	}
 
-	public Connection getDestinationConnection() {
-		return destinationConnection;
+	public List<ExecutorService> getWriterExecutorServiceList() {
+		return writerExecutorServiceList;
 	}
 
-	public void setDestinationConnection(Connection destinationConnection) {
-		this.destinationConnection = destinationConnection;
+	public void setWriterExecutorServiceList(List<ExecutorService> writerExecutorServiceList) {
+		this.writerExecutorServiceList = writerExecutorServiceList;
 	}
 
 	public String getDestinationTableName() {
@@ -79,14 +95,22 @@ public class CopyTaskInfo {
 		this.destinationTableName = destinationTableName;
 	}
 
-	public int getBatchCount() {
-		return batchCount;
+	public WriteMode getWriteMode() {
+		return writeMode;
 	}
 
-	public void setBatchCount(int batchCount) {
-		this.batchCount = batchCount;
+	public void setWriteMode(WriteMode writeMode) {
+		this.writeMode = writeMode;
 	}
-	
+
+	public List<String> getDestinationKeyColumnNameList() {
+		return destinationKeyColumnNameList;
+	}
+
+	public void setDestinationKeyColumnNameList(List<String> destinationKeyColumnNameList) {
+		this.destinationKeyColumnNameList = destinationKeyColumnNameList;
+	}
+
 	public ProgressBarTask getProgressBar() {
 		return progressBar;
 	}
@@ -94,4 +118,103 @@ public class CopyTaskInfo {
 	public void setProgressBar(ProgressBarTask progressBar) {
 		this.progressBar = progressBar;
 	}
+
+	public ConcurrencyController getConcurrencyController() {
+		return concurrencyController;
+	}
+
+	public void setConcurrencyController(ConcurrencyController concurrencyController) {
+		this.concurrencyController = concurrencyController;
+	}
+
+	public RateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	public void setRateLimiter(RateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
+	public ShardRouter getShardRouter() {
+		return shardRouter;
+	}
+
+	public void setShardRouter(ShardRouter shardRouter) {
+		this.shardRouter = shardRouter;
+	}
+
+	public CopyControl getCopyControl() {
+		return copyControl;
+	}
+
+	public void setCopyControl(CopyControl copyControl) {
+		this.copyControl = copyControl;
+	}
+
+	public RejectWriter getRejectWriter() {
+		return rejectWriter;
+	}
+
+	public void setRejectWriter(RejectWriter rejectWriter) {
+		this.rejectWriter = rejectWriter;
+	}
+
+	public BranchRecovery getBranchRecovery() {
+		return branchRecovery;
+	}
+
+	public void setBranchRecovery(BranchRecovery branchRecovery) {
+		this.branchRecovery = branchRecovery;
+	}
+
+	public int getMaxRetryCount() {
+		return maxRetryCount;
+	}
+
+	public void setMaxRetryCount(int maxRetryCount) {
+		this.maxRetryCount = maxRetryCount;
+	}
+
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	public int getWriterLaneCount() {
+		return writerLaneCount;
+	}
+
+	/* The number of writers per destination, each on the branch of a different thread. */
+	public void setWriterLaneCount(int writerLaneCount) {
+		this.writerLaneCount = writerLaneCount;
+	}
+
+	public Dialect getSourceDialect() {
+		return sourceDialect;
+	}
+
+	public void setSourceDialect(Dialect sourceDialect) {
+		this.sourceDialect = sourceDialect;
+	}
+
+	public List<Dialect> getDestinationDialectList() {
+		return destinationDialectList;
+	}
+
+	/* The dialect of each destination, in destination order. */
+	public void setDestinationDialectList(List<Dialect> destinationDialectList) {
+		this.destinationDialectList = destinationDialectList;
+	}
+
+	public boolean isServerSide() {
+		return isServerSide;
+	}
+
+	/* Whether the source table is in the destination database, so that chunks are copied by 'INSERT ... SELECT'. */
+	public void setServerSide(boolean isServerSide) {
+		this.isServerSide = isServerSide;
+	}
 }
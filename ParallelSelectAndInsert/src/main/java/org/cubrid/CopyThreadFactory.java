@@ -0,0 +1,33 @@
+package org.cubrid;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*-
+ * Copy threads are I/O-bound, so they are created with a small stack
+ * to keep a pool of hundreds of threads cheap.
+ * Virtual threads would need Java 21, and the project is built for Java 11.
+ */
+public class CopyThreadFactory implements ThreadFactory {
+	private static final long STACK_SIZE = 256 * 1024;
+
+	private final String namePrefix;
+	private final AtomicInteger threadCounter;
+
+	public CopyThreadFactory() {
+		this("copy");
+	}
+
+	public CopyThreadFactory(String namePrefix) {
+		this.namePrefix = namePrefix;
+		this.threadCounter = new AtomicInteger(0);
+	}
+
+	@Override
+	public Thread newThread(Runnable runnable) {
+		Thread thread = new Thread(null, runnable, namePrefix + "-" + threadCounter.incrementAndGet(), STACK_SIZE);
+		thread.setDaemon(true);
+
+		return thread;
+	}
+}
@@ -0,0 +1,789 @@
+package org.cubrid;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.sql.XAConnection;
+
+import cubrid.jdbc.driver.CUBRIDXADataSource;
+
+/*-
+ * CUBRID reads its catalog from db_index, db_index_key and db_attribute,
+ * pages through a table in index order with the USE_IDX hint and 'LIMIT ?, ?',
+ * and upserts with 'ON DUPLICATE KEY UPDATE'.
+ */
+public class CubridDialect implements Dialect {
+	private static final Logger LOGGER = Logger.getLogger(CubridDialect.class.getName());
+
+	@Override
+	public String getName() {
+		return "cubrid";
+	}
+
+	@Override
+	public boolean acceptsUrl(String url) {
+		return url.startsWith("jdbc:cubrid:");
+	}
+
+	@Override
+	public String getDriverClassName() {
+		return "cubrid.jdbc.driver.CUBRIDDriver";
+	}
+
+	@Override
+	public XAConnection getXAConnection(Properties properties) throws SQLException {
+		CUBRIDXADataSource xaDataSource = new CUBRIDXADataSource();
+		xaDataSource.setServerName(properties.getProperty("ServerName"));
+		xaDataSource.setPortNumber(Integer.parseInt(properties.getProperty("PortNumber")));
+		xaDataSource.setDatabaseName(properties.getProperty("DatabaseName"));
+		xaDataSource.setUser(properties.getProperty("User"));
+		xaDataSource.setPassword(properties.getProperty("Password"));
+
+		return xaDataSource.getXAConnection();
+	}
+
+	/* The XA data source is addressed by its own properties, so they are compared with 'jdbc:cubrid:host:port:db:'. */
+	@Override
+	public boolean isXATargetOf(String url, Properties properties) {
+		if (url == null || !acceptsUrl(url.trim())) {
+			return false;
+		}
+
+		String[] urlParts = url.trim().substring("jdbc:cubrid:".length()).split(":", -1);
+		if (urlParts.length < 3) {
+			return false;
+		}
+
+		return urlParts[0].equalsIgnoreCase(String.valueOf(properties.getProperty("ServerName")).trim())
+				&& urlParts[1].equals(String.valueOf(properties.getProperty("PortNumber")).trim())
+				&& urlParts[2].equalsIgnoreCase(String.valueOf(properties.getProperty("DatabaseName")).trim());
+	}
+
+	/* The broker sends the rows of a fetch in one response, so a fetch of one batch keeps the writers fed. */
+	@Override
+	public int getFetchSize(int batchCount) {
+		return batchCount;
+	}
+
+	@Override
+	public String getCreateIndexQuery(String tableName, IndexDefinition indexDefinition) {
+		StringBuilder query = new StringBuilder();
+
+		if (indexDefinition.isPrimaryKey()) {
+			query.append("alter table ").append(tableName).append(" add constraint [")
+					.append(indexDefinition.getIndexName()).append("] primary key (");
+		} else {
+			query.append("create ");
+
+			if (indexDefinition.isReverse()) {
+				query.append("reverse ");
+			}
+
+			if (indexDefinition.isUnique()) {
+				query.append("unique ");
+			}
+
+			query.append("index [").append(indexDefinition.getIndexName()).append("] on ").append(tableName)
+					.append(" (");
+		}
+
+		List<String> keyList = indexDefinition.getKeyList();
+		for (int i = 0; i < keyList.size(); i++) {
+			if (i > 0) {
+				query.append(", ");
+			}
+
+			query.append(keyList.get(i));
+		}
+
+		query.append(")");
+
+		return query.toString();
+	}
+
+	private String getFindUsableIndexQuery(boolean withOwnerName) {
+		StringBuilder query = new StringBuilder();
+
+		query.append("select a.index_name, a.is_primary_key, b.key_attr_name").append(" ");
+		query.append("from db_index as a, db_index_key as b, db_attribute as c").append(" ");
+		query.append("where").append(" ");
+		query.append("a.index_name = b.index_name").append(" ");
+		query.append("and a.class_name = b.class_name").append(" ");
+		query.append("and a.owner_name = b.owner_name").append(" ");
+		query.append("and b.class_name = c.class_name").append(" ");
+		query.append("and b.owner_name = c.owner_name").append(" ");
+		query.append("and b.key_attr_name = c.attr_name").append(" ");
+		query.append("and a.class_name = ?").append(" ");
+
+		if (withOwnerName) {
+			query.append("and a.owner_name = upper(?)").append(" ");
+		} else {
+			query.append("and a.owner_name = current_user").append(" ");
+		}
+
+		query.append("and a.filter_expression is null").append(" ");
+		query.append("and a.have_function = 'NO'").append(" ");
+		query.append("and a.status != 'INVISIBLE INDEX'").append(" ");
+		query.append("and b.key_order = 0").append(" ");
+		query.append("and c.is_nullable = 'NO'").append(" ");
+		query.append("order by a.is_primary_key desc").append(" ");
+		query.append("limit 1").append(" ");
+
+		return query.toString();
+	}
+
+	@Override
+	public String getFirstColumnOfUsableIndex(Connection connection, String tableName) throws SQLException {
+		if (connection == null) {
+			throw new IllegalArgumentException("Connection is null");
+		}
+
+		if (tableName == null) {
+			throw new IllegalArgumentException("Table name is null");
+		}
+
+		String[] bindNames = getBindNames(tableName);
+		String query = getFindUsableIndexQuery(bindNames[1] != null);
+
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			bindTableName(statement, bindNames);
+
+			try (ResultSet resultSet = statement.executeQuery()) {
+				if (resultSet.next()) {
+					String indexName = resultSet.getString("index_name");
+					String indexFirstColumnName = resultSet.getString("key_attr_name");
+
+					LOGGER.log(Level.INFO, String.format("The %s index is usable", indexName));
+					return indexFirstColumnName;
+				}
+			} catch (SQLException e) {
+				throw e;
+			}
+		} catch (SQLException e) {
+			throw e;
+		}
+
+		return null;
+	}
+
+	private String getFindPrimaryKeyColumnsQuery(boolean withOwnerName) {
+		StringBuilder query = new StringBuilder();
+
+		query.append("select b.key_attr_name").append(" ");
+		query.append("from db_index as a, db_index_key as b").append(" ");
+		query.append("where").append(" ");
+		query.append("a.index_name = b.index_name").append(" ");
+		query.append("and a.class_name = b.class_name").append(" ");
+		query.append("and a.owner_name = b.owner_name").append(" ");
+		query.append("and a.class_name = ?").append(" ");
+
+		if (withOwnerName) {
+			query.append("and a.owner_name = upper(?)").append(" ");
+		} else {
+			query.append("and a.owner_name = current_user").append(" ");
+		}
+
+		query.append("and a.is_primary_key = 'YES'").append(" ");
+		query.append("order by b.key_order").append(" ");
+
+		return query.toString();
+	}
+
+	@Override
+	public List<String> getPrimaryKeyColumnNames(Connection connection, String tableName) throws SQLException {
+		if (connection == null) {
+			throw new IllegalArgumentException("Connection is null");
+		}
+
+		if (tableName == null) {
+			throw new IllegalArgumentException("Table name is null");
+		}
+
+		String[] bindNames = getBindNames(tableName);
+		String query = getFindPrimaryKeyColumnsQuery(bindNames[1] != null);
+		List<String> keyColumnNameList = new ArrayList<String>();
+
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			bindTableName(statement, bindNames);
+
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					keyColumnNameList.add(resultSet.getString("key_attr_name"));
+				}
+			} catch (SQLException e) {
+				throw e;
+			}
+		} catch (SQLException e) {
+			throw e;
+		}
+
+		return keyColumnNameList;
+	}
+
+	private String getCountIndexesQuery(boolean withOwnerName) {
+		StringBuilder query = new StringBuilder();
+
+		query.append("select count(*) from db_index").append(" ");
+		query.append("where").append(" ");
+		query.append("class_name = ?").append(" ");
+
+		if (withOwnerName) {
+			query.append("and owner_name = upper(?)").append(" ");
+		} else {
+			query.append("and owner_name = current_user").append(" ");
+		}
+
+		return query.toString();
+	}
+
+	/* Every index, including the primary key, makes each inserted row more expensive. */
+	@Override
+	public int getIndexCount(Connection connection, String tableName) throws SQLException {
+		if (connection == null) {
+			throw new IllegalArgumentException("Connection is null");
+		}
+
+		if (tableName == null) {
+			throw new IllegalArgumentException("Table name is null");
+		}
+
+		String[] bindNames = getBindNames(tableName);
+		String query = getCountIndexesQuery(bindNames[1] != null);
+
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			bindTableName(statement, bindNames);
+
+			try (ResultSet resultSet = statement.executeQuery()) {
+				if (resultSet.next()) {
+					return resultSet.getInt(1);
+				}
+			} catch (SQLException e) {
+				throw e;
+			}
+		} catch (SQLException e) {
+			throw e;
+		}
+
+		return 0;
+	}
+
+	@Override
+	public String getFetchSourceRecordsQuery(String tableName, String columnName) {
+		if (tableName == null) {
+			throw new IllegalArgumentException("Table name is null");
+		}
+
+		StringBuilder query = new StringBuilder();
+
+		if (columnName != null) {
+			query.append("select /*+ USE_IDX */ * from ").append(tableName).append(" where ").append(columnName)
+					.append(" = ").append(columnName).append(" order by ").append(columnName);
+		} else {
+			/* Consider using an 'ORDER BY' clause to ensure consistent data order. */
+			query.append("select * from ").append(tableName);
+		}
+
+		query.append(" ").append("limit ?, ?");
+
+		return query.toString();
+	}
+
+	@Override
+	public String getFetchSourceRecordsInRangeQuery(String tableName, String columnName, boolean hasLowerBound,
+			boolean hasUpperBound) {
+		if (tableName == null) {
+			throw new IllegalArgumentException("Table name is null");
+		}
+
+		if (columnName == null) {
+			throw new IllegalArgumentException("Column name is null");
+		}
+
+		StringBuilder query = new StringBuilder();
+		query.append("select /*+ USE_IDX */ * from ").append(tableName).append(" where ").append(columnName);
+
+		if (hasLowerBound) {
+			query.append(" >= ?");
+		} else {
+			query.append(" = ").append(columnName);
+		}
+
+		if (hasUpperBound) {
+			query.append(" and ").append(columnName).append(" < ?");
+		}
+
+		return query.toString();
+	}
+
+	/* Selecting the column alone lets the server walk the index without reading the rows. */
+	@Override
+	public String getFindKeyAtOffsetQuery(String tableName, String columnName) {
+		if (tableName == null) {
+			throw new IllegalArgumentException("Table name is null");
+		}
+
+		if (columnName == null) {
+			throw new IllegalArgumentException("Column name is null");
+		}
+
+		StringBuilder query = new StringBuilder();
+		query.append("select /*+ USE_IDX */ ").append(columnName).append(" from ").append(tableName)
+				.append(" where ").append(columnName).append(" = ").append(columnName).append(" order by ")
+				.append(columnName).append(" ").append("limit ?, 1");
+
+		return query.toString();
+	}
+
+	private String getFindTableQuery(boolean withOwnerName) {
+		StringBuilder query = new StringBuilder();
+
+		query.append("select count(*) from db_class").append(" ");
+		query.append("where").append(" ");
+		query.append("class_name = ?").append(" ");
+
+		if (withOwnerName) {
+			query.append("and owner_name = upper(?)").append(" ");
+		} else {
+			query.append("and owner_name = current_user").append(" ");
+		}
+
+		return query.toString();
+	}
+
+	@Override
+	public boolean isTableExists(Connection connection, String tableName) throws SQLException {
+		if (connection == null) {
+			throw new IllegalArgumentException("Connection is null");
+		}
+
+		if (tableName == null) {
+			throw new IllegalArgumentException("Table name is null");
+		}
+
+		String[] bindNames = getBindNames(tableName);
+		String query = getFindTableQuery(bindNames[1] != null);
+
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			bindTableName(statement, bindNames);
+
+			try (ResultSet resultSet = statement.executeQuery()) {
+				if (resultSet.next()) {
+					return resultSet.getInt(1) > 0;
+				}
+			} catch (SQLException e) {
+				throw e;
+			}
+		} catch (SQLException e) {
+			throw e;
+		}
+
+		return false;
+	}
+
+	private String getFindColumnsQuery(boolean withOwnerName) {
+		StringBuilder query = new StringBuilder();
+
+		query.append("select attr_name, data_type, prec, scale, collation, is_nullable").append(" ");
+		query.append("from db_attribute").append(" ");
+		query.append("where").append(" ");
+		query.append("class_name = ?").append(" ");
+
+		if (withOwnerName) {
+			query.append("and owner_name = upper(?)").append(" ");
+		} else {
+			query.append("and owner_name = current_user").append(" ");
+		}
+
+		query.append("and attr_type = 'INSTANCE'").append(" ");
+		query.append("order by def_order").append(" ");
+
+		return query.toString();
+	}
+
+	/* The created table has no column defaults or AUTO_INCREMENT serials, so each one the source has is logged. */
+	private void warnSkippedColumnAttributes(Connection connection, String tableName) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement("show columns from " + tableName);
+				ResultSet resultSet = statement.executeQuery()) {
+			while (resultSet.next()) {
+				String columnName = resultSet.getString("Field");
+
+				if (resultSet.getString("Default") != null) {
+					LOGGER.log(Level.WARNING, String.format("The default value of the %s column is not replicated",
+							columnName));
+				}
+
+				String extra = resultSet.getString("Extra");
+				if (extra != null && extra.toLowerCase().contains("auto_increment")) {
+					LOGGER.log(Level.WARNING, String.format("The AUTO_INCREMENT of the %s column is not replicated",
+							columnName));
+				}
+			}
+		} catch (SQLException e) {
+			throw e;
+		}
+	}
+
+	private String getFindIndexKeysQuery(boolean withOwnerName) {
+		StringBuilder query = new StringBuilder();
+
+		query.append("select a.index_name, a.is_primary_key, a.is_unique, a.is_reverse, a.is_foreign_key,").append(" ");
+		query.append("a.filter_expression, a.have_function,").append(" ");
+		query.append("b.key_attr_name, b.asc_desc, b.key_prefix_length").append(" ");
+		query.append("from db_index as a, db_index_key as b").append(" ");
+		query.append("where").append(" ");
+		query.append("a.index_name = b.index_name").append(" ");
+		query.append("and a.class_name = b.class_name").append(" ");
+		query.append("and a.owner_name = b.owner_name").append(" ");
+		query.append("and a.class_name = ?").append(" ");
+
+		if (withOwnerName) {
+			query.append("and a.owner_name = upper(?)").append(" ");
+		} else {
+			query.append("and a.owner_name = current_user").append(" ");
+		}
+
+		query.append("order by a.is_primary_key desc, a.index_name, b.key_order").append(" ");
+
+		return query.toString();
+	}
+
+	/*-
+	 * Reads the columns and indexes of the table from db_attribute, db_index and db_index_key.
+	 * Foreign keys, function and filtered indexes, column defaults and AUTO_INCREMENT are skipped with a warning.
+	 */
+	@Override
+	public TableDefinition getTableDefinition(Connection connection, String tableName) throws SQLException {
+		if (connection == null) {
+			throw new IllegalArgumentException("Connection is null");
+		}
+
+		if (tableName == null) {
+			throw new IllegalArgumentException("Table name is null");
+		}
+
+		String[] bindNames = getBindNames(tableName);
+		TableDefinition tableDefinition = new TableDefinition(tableName);
+
+		try (PreparedStatement statement = connection.prepareStatement(getFindColumnsQuery(bindNames[1] != null))) {
+			bindTableName(statement, bindNames);
+
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					StringBuilder column = new StringBuilder();
+					column.append("[").append(resultSet.getString("attr_name")).append("] ");
+					column.append(getColumnType(resultSet.getString("data_type"), resultSet.getInt("prec"),
+							resultSet.getInt("scale"), resultSet.getString("collation")));
+
+					if ("NO".equals(resultSet.getString("is_nullable"))) {
+						column.append(" not null");
+					}
+
+					tableDefinition.addColumn(column.toString());
+				}
+			} catch (SQLException e) {
+				throw e;
+			}
+		} catch (SQLException e) {
+			throw e;
+		}
+
+		warnSkippedColumnAttributes(connection, tableName);
+
+		try (PreparedStatement statement = connection.prepareStatement(getFindIndexKeysQuery(bindNames[1] != null))) {
+			bindTableName(statement, bindNames);
+
+			try (ResultSet resultSet = statement.executeQuery()) {
+				IndexDefinition indexDefinition = null;
+
+				while (resultSet.next()) {
+					String indexName = resultSet.getString("index_name");
+
+					if ("YES".equals(resultSet.getString("is_foreign_key"))
+							|| resultSet.getString("filter_expression") != null
+							|| "YES".equals(resultSet.getString("have_function"))) {
+						if (indexDefinition == null || !indexName.equals(indexDefinition.getIndexName())) {
+							LOGGER.log(Level.WARNING, String.format("The %s index is not replicated", indexName));
+							indexDefinition = new IndexDefinition(indexName, false, false, false);
+						}
+
+						continue;
+					}
+
+					if (indexDefinition == null || !indexName.equals(indexDefinition.getIndexName())) {
+						indexDefinition = new IndexDefinition(indexName, "YES".equals(resultSet.getString("is_primary_key")),
+								"YES".equals(resultSet.getString("is_unique")),
+								"YES".equals(resultSet.getString("is_reverse")));
+						tableDefinition.addIndexDefinition(indexDefinition);
+					}
+
+					StringBuilder key = new StringBuilder();
+					key.append("[").append(resultSet.getString("key_attr_name")).append("]");
+
+					int keyPrefixLength = resultSet.getInt("key_prefix_length");
+					if (keyPrefixLength > 0) {
+						key.append("(").append(keyPrefixLength).append(")");
+					}
+
+					if ("DESC".equals(resultSet.getString("asc_desc"))) {
+						key.append(" desc");
+					}
+
+					indexDefinition.addKey(key.toString());
+				}
+			} catch (SQLException e) {
+				throw e;
+			}
+		} catch (SQLException e) {
+			throw e;
+		}
+
+		return tableDefinition;
+	}
+
+	private static String getColumnType(String dataType, int precision, int scale, String collation)
+			throws SQLException {
+		String columnType = null;
+		boolean isString = false;
+
+		switch (dataType) {
+		case "CHAR":
+			columnType = String.format("char(%d)", precision);
+			isString = true;
+			break;
+		case "STRING":
+			columnType = String.format("varchar(%d)", precision);
+			isString = true;
+			break;
+		case "NCHAR":
+			columnType = String.format("nchar(%d)", precision);
+			isString = true;
+			break;
+		case "VARNCHAR":
+			columnType = String.format("nchar varying(%d)", precision);
+			isString = true;
+			break;
+		case "BIT":
+			columnType = String.format("bit(%d)", precision);
+			break;
+		case "VARBIT":
+			columnType = String.format("bit varying(%d)", precision);
+			break;
+		case "NUMERIC":
+			columnType = String.format("numeric(%d, %d)", precision, scale);
+			break;
+		case "ENUM":
+		case "SET":
+		case "MULTISET":
+		case "SEQUENCE":
+		case "OBJECT":
+			throw new SQLException(String.format("The %s type can not be replicated, create the table by hand",
+					dataType));
+		default:
+			columnType = dataType.toLowerCase();
+			break;
+		}
+
+		if (isString && collation != null) {
+			columnType = columnType + " collate " + collation;
+		}
+
+		return columnType;
+	}
+
+	/* Splits an optional owner name off the table name, as {table name, owner name or null}. */
+	private static String[] getBindNames(String tableName) {
+		int indexOfDot = tableName.indexOf(".");
+		if (indexOfDot > 0) {
+			return new String[] { tableName.substring(indexOfDot + 1), tableName.substring(0, indexOfDot) };
+		}
+
+		return new String[] { tableName, null };
+	}
+
+	private static void bindTableName(PreparedStatement statement, String[] bindNames) throws SQLException {
+		statement.setString(1, bindNames[0]);
+
+		if (bindNames[1] != null) {
+			statement.setString(2, bindNames[1]);
+		}
+	}
+
+	@Override
+	public String getScanSourceRecordsQuery(String tableName) {
+		if (tableName == null) {
+			throw new IllegalArgumentException("Table name is null");
+		}
+
+		StringBuilder query = new StringBuilder();
+		query.append("select * from ").append(tableName);
+
+		return query.toString();
+	}
+
+	@Override
+	public String getInsertRecordToDestinationQuery(String tableName, int columnCount) {
+		if (tableName == null) {
+			throw new IllegalArgumentException("Table name is null");
+		}
+
+		StringBuilder query = new StringBuilder();
+		query.append("insert into ").append(tableName).append(" values (");
+
+		if (columnCount > 0) {
+			query.append("?");
+		}
+
+		for (int i = 1; i < columnCount; i++) {
+
+			query.append(", ").append("?");
+		}
+
+		query.append(")");
+
+		return query.toString();
+	}
+
+	/*-
+	 * The non-key columns are bound a second time after the insert values,
+	 * in the order returned by getUpsertUpdateColumnIndexes().
+	 */
+	@Override
+	public String getUpsertRecordToDestinationQuery(String tableName, List<String> columnNameList,
+			List<String> keyColumnNameList) {
+		if (tableName == null) {
+			throw new IllegalArgumentException("Table name is null");
+		}
+
+		if (columnNameList == null || columnNameList.isEmpty()) {
+			throw new IllegalArgumentException("Column name list is empty");
+		}
+
+		if (keyColumnNameList == null || keyColumnNameList.isEmpty()) {
+			throw new IllegalArgumentException(String.format("No primary key found for table: %s", tableName));
+		}
+
+		StringBuilder query = new StringBuilder();
+		query.append(getInsertRecordToDestinationQuery(tableName, columnNameList.size()));
+		query.append(" on duplicate key update ");
+
+		int[] updateColumnIndexes = getUpsertUpdateColumnIndexes(columnNameList, keyColumnNameList);
+		if (updateColumnIndexes.length == 0) {
+			/* Every column is part of the key, so there is nothing to update. */
+			String keyColumnName = keyColumnNameList.get(0);
+			query.append(keyColumnName).append(" = ").append(keyColumnName);
+		}
+
+		for (int i = 0; i < updateColumnIndexes.length; i++) {
+			if (i > 0) {
+				query.append(", ");
+			}
+
+			query.append(columnNameList.get(updateColumnIndexes[i] - 1)).append(" = ?");
+		}
+
+		return query.toString();
+	}
+
+	/* Returns the 1-based positions of the columns that are not part of the key. */
+	@Override
+	public int[] getUpsertUpdateColumnIndexes(List<String> columnNameList, List<String> keyColumnNameList) {
+		List<Integer> updateColumnIndexList = new ArrayList<Integer>(columnNameList.size());
+
+		for (int i = 0; i < columnNameList.size(); i++) {
+			boolean isKeyColumn = false;
+
+			for (String keyColumnName : keyColumnNameList) {
+				if (keyColumnName.equalsIgnoreCase(columnNameList.get(i))) {
+					isKeyColumn = true;
+					break;
+				}
+			}
+
+			if (!isKeyColumn) {
+				updateColumnIndexList.add(i + 1);
+			}
+		}
+
+		int[] updateColumnIndexes = new int[updateColumnIndexList.size()];
+		for (int i = 0; i < updateColumnIndexes.length; i++) {
+			updateColumnIndexes[i] = updateColumnIndexList.get(i);
+		}
+
+		return updateColumnIndexes;
+	}
+
+	private String getFindPartitionsQuery(boolean withOwnerName) {
+		StringBuilder query = new StringBuilder();
+
+		query.append("select partition_type, partition_expr, partition_values from db_partition").append(" ");
+		query.append("where").append(" ");
+		query.append("class_name = ?").append(" ");
+
+		if (withOwnerName) {
+			query.append("and owner_name = upper(?)").append(" ");
+		} else {
+			query.append("and owner_name = current_user").append(" ");
+		}
+
+		return query.toString();
+	}
+
+	/*-
+	 * The values of a range partition are {lower bound, upper bound}, with a null upper bound for MAXVALUE.
+	 * Hash and list partitions are placed by the server, so rows cannot be grouped by them.
+	 */
+	@Override
+	public List<Object> getRangePartitionUpperBounds(Connection connection, String tableName, String columnName)
+			throws SQLException {
+		if (connection == null) {
+			throw new IllegalArgumentException("Connection is null");
+		}
+
+		if (tableName == null) {
+			throw new IllegalArgumentException("Table name is null");
+		}
+
+		String[] bindNames = getBindNames(tableName);
+		String query = getFindPartitionsQuery(bindNames[1] != null);
+		List<Object> upperBoundList = new ArrayList<Object>();
+
+		try (PreparedStatement statement = connection.prepareStatement(query)) {
+			bindTableName(statement, bindNames);
+
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					String partitionType = resultSet.getString("partition_type");
+					String partitionColumnName = resultSet.getString("partition_expr").replaceAll("[\\[\\]`\"]", "")
+							.trim();
+
+					if (!"RANGE".equalsIgnoreCase(partitionType) || !partitionColumnName.equalsIgnoreCase(columnName)) {
+						LOGGER.log(Level.INFO, String.format("%s is partitioned by %s on %s, not by range on %s",
+								tableName, partitionType, partitionColumnName, columnName));
+						return null;
+					}
+
+					Object partitionValues = resultSet.getObject("partition_values");
+					if (partitionValues instanceof Object[] && ((Object[]) partitionValues).length == 2) {
+						Object upperBound = ((Object[]) partitionValues)[1];
+						if (upperBound != null) {
+							upperBoundList.add(upperBound);
+						}
+					}
+				}
+			} catch (SQLException e) {
+				throw e;
+			}
+		} catch (SQLException e) {
+			throw e;
+		}
+
+		return upperBoundList.isEmpty() ? null : upperBoundList;
+	}
+}
@@ -0,0 +1,114 @@
+package org.cubrid;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Properties;
+
+import javax.sql.XAConnection;
+
+/*-
+ * What the copy engine needs to know about one database engine: how to connect to it, how to read its catalog,
+ * and which queries page through a source table and write to a destination table fastest.
+ *
+ * The dialect of a database is chosen from its JDBC URL by forUrl().
+ */
+public interface Dialect {
+	String getName();
+
+	/* Whether this dialect handles the JDBC URL, such as "jdbc:cubrid:...". */
+	boolean acceptsUrl(String url);
+
+	String getDriverClassName();
+
+	/*-
+	 * Opens an XA connection from the resolved properties of one database:
+	 * Url, ServerName, PortNumber, DatabaseName, User and Password.
+	 */
+	XAConnection getXAConnection(Properties properties) throws SQLException;
+
+	/* Whether an XA connection opened from the resolved properties reaches the database of the JDBC URL. */
+	default boolean isXATargetOf(String url, Properties properties) {
+		return url != null && url.trim().equals(properties.getProperty("Url", "").trim());
+	}
+
+	/* Returns the first column of an index that can order the whole table, or null if there is none. */
+	String getFirstColumnOfUsableIndex(Connection connection, String tableName) throws SQLException;
+
+	List<String> getPrimaryKeyColumnNames(Connection connection, String tableName) throws SQLException;
+
+	int getIndexCount(Connection connection, String tableName) throws SQLException;
+
+	boolean isTableExists(Connection connection, String tableName) throws SQLException;
+
+	TableDefinition getTableDefinition(Connection connection, String tableName) throws SQLException;
+
+	/*-
+	 * Returns the upper bounds of the range partitions of the table, in any order, if it is partitioned by range
+	 * on the column alone, or null otherwise. The last partition, up to MAXVALUE, has no upper bound.
+	 */
+	List<Object> getRangePartitionUpperBounds(Connection connection, String tableName, String columnName)
+			throws SQLException;
+
+	/*-
+	 * Fetches a range of rows ordered by the column, or in any stable order if the column is null.
+	 * The first parameter is the number of rows to skip and the second the number of rows to fetch.
+	 */
+	String getFetchSourceRecordsQuery(String tableName, String columnName);
+
+	/*-
+	 * Fetches the rows whose column is at least the lower bound and below the upper bound, which are its parameters.
+	 * A chunk at either end of the table has no bound on that side, and that parameter is left out.
+	 */
+	String getFetchSourceRecordsInRangeQuery(String tableName, String columnName, boolean hasLowerBound,
+			boolean hasUpperBound);
+
+	/* Returns the value of the column at a position in column order. The parameter is the number of rows to skip. */
+	String getFindKeyAtOffsetQuery(String tableName, String columnName);
+
+	/* Reads the whole table in one statement, for tables that have no usable index to split it by. */
+	String getScanSourceRecordsQuery(String tableName);
+
+	/* The fetch size that suits a batch of batchCount rows, or 0 to leave the driver's default. */
+	int getFetchSize(int batchCount);
+
+	String getInsertRecordToDestinationQuery(String tableName, int columnCount);
+
+	/*-
+	 * Inserts a row or updates the row with the same key. All columns are bound first, in order,
+	 * followed by the columns at the 1-based positions returned by getUpsertUpdateColumnIndexes().
+	 */
+	String getUpsertRecordToDestinationQuery(String tableName, List<String> columnNameList,
+			List<String> keyColumnNameList);
+
+	int[] getUpsertUpdateColumnIndexes(List<String> columnNameList, List<String> keyColumnNameList);
+
+	String getCreateIndexQuery(String tableName, IndexDefinition indexDefinition);
+
+	/* Inserts the rows of a query on the source table, with its parameters, without them leaving the server. */
+	default String getInsertSelectQuery(String tableName, String selectQuery) {
+		if (tableName == null) {
+			throw new IllegalArgumentException("Table name is null");
+		}
+
+		return "insert into " + tableName + " " + selectQuery;
+	}
+
+	static Dialect forUrl(String url) {
+		Dialect[] dialects = { new CubridDialect(), new H2Dialect() };
+
+		if (url != null) {
+			for (Dialect dialect : dialects) {
+				if (dialect.acceptsUrl(url)) {
+					return dialect;
+				}
+			}
+		}
+
+		throw new IllegalArgumentException(String.format("No dialect supports the URL: %s", url));
+	}
+
+	static Dialect forConnection(Connection connection) throws SQLException {
+		return forUrl(connection.getMetaData().getURL());
+	}
+}
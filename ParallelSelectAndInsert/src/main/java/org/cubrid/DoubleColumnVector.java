@@ -0,0 +1,64 @@
+package org.cubrid;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/* Floating point columns, kept as doubles and bound as floats if that is their type. */
+public class DoubleColumnVector extends ColumnVector {
+	private final int columnType;
+	private double[] values;
+
+	public DoubleColumnVector(int columnType, int capacity) {
+		super(capacity);
+
+		this.columnType = columnType;
+		this.values = new double[Math.max(1, capacity)];
+	}
+
+	@Override
+	public long read(ResultSet resultSet, int columnIndex, int rowNum) throws SQLException {
+		values[rowNum] = resultSet.getDouble(columnIndex);
+
+		if (resultSet.wasNull()) {
+			setNull(rowNum);
+			return 1;
+		}
+
+		return Double.BYTES;
+	}
+
+	@Override
+	public void bind(PreparedStatement statement, int parameterIndex, int rowNum) throws SQLException {
+		if (isNull(rowNum)) {
+			statement.setNull(parameterIndex, columnType);
+			return;
+		}
+
+		if (columnType == Types.REAL) {
+			statement.setFloat(parameterIndex, (float) values[rowNum]);
+		} else {
+			statement.setDouble(parameterIndex, values[rowNum]);
+		}
+	}
+
+	@Override
+	public Object getValue(int rowNum) {
+		if (isNull(rowNum)) {
+			return null;
+		}
+
+		return values[rowNum];
+	}
+
+	@Override
+	public void ensureCapacity(int capacity) {
+		super.ensureCapacity(capacity);
+
+		if (capacity > values.length) {
+			values = Arrays.copyOf(values, Math.max(capacity, values.length * 2));
+		}
+	}
+}
@@ -0,0 +1,383 @@
+package org.cubrid;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.sql.XAConnection;
+
+import org.h2.jdbcx.JdbcDataSource;
+
+/*-
+ * H2, embedded or in server mode, so that the whole copy engine can be run and measured without a CUBRID server.
+ *
+ * The catalog is read through DatabaseMetaData, tables are paged with 'OFFSET ? ROWS FETCH NEXT ? ROWS ONLY'
+ * in index order, or in _ROWID_ order without a usable index, and upserts use 'MERGE INTO ... KEY'.
+ * Unquoted names are looked up in upper case, as H2 stores them.
+ */
+public class H2Dialect implements Dialect {
+	private static final Logger LOGGER = Logger.getLogger(H2Dialect.class.getName());
+
+	@Override
+	public String getName() {
+		return "h2";
+	}
+
+	@Override
+	public boolean acceptsUrl(String url) {
+		return url.startsWith("jdbc:h2:");
+	}
+
+	@Override
+	public String getDriverClassName() {
+		return "org.h2.Driver";
+	}
+
+	@Override
+	public XAConnection getXAConnection(Properties properties) throws SQLException {
+		JdbcDataSource xaDataSource = new JdbcDataSource();
+		xaDataSource.setURL(properties.getProperty("Url"));
+		xaDataSource.setUser(properties.getProperty("User"));
+		xaDataSource.setPassword(properties.getProperty("Password", ""));
+
+		return xaDataSource.getXAConnection();
+	}
+
+	@Override
+	public String getFirstColumnOfUsableIndex(Connection connection, String tableName) throws SQLException {
+		List<String> keyColumnNameList = getPrimaryKeyColumnNames(connection, tableName);
+		if (!keyColumnNameList.isEmpty()) {
+			return keyColumnNameList.get(0);
+		}
+
+		DatabaseMetaData metadata = connection.getMetaData();
+		String[] names = getNames(tableName);
+		Set<String> notNullColumnNameSet = new HashSet<String>();
+
+		try (ResultSet resultSet = metadata.getColumns(null, names[1], names[0], null)) {
+			while (resultSet.next()) {
+				if (resultSet.getInt("NULLABLE") == DatabaseMetaData.columnNoNulls) {
+					notNullColumnNameSet.add(resultSet.getString("COLUMN_NAME"));
+				}
+			}
+		}
+
+		try (ResultSet resultSet = metadata.getIndexInfo(null, names[1], names[0], false, false)) {
+			while (resultSet.next()) {
+				String columnName = resultSet.getString("COLUMN_NAME");
+
+				if (resultSet.getInt("ORDINAL_POSITION") == 1 && notNullColumnNameSet.contains(columnName)) {
+					LOGGER.log(Level.INFO, String.format("The %s index is usable", resultSet.getString("INDEX_NAME")));
+					return columnName;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public List<String> getPrimaryKeyColumnNames(Connection connection, String tableName) throws SQLException {
+		String[] names = getNames(tableName);
+		Map<Integer, String> keyColumnNameMap = new TreeMap<Integer, String>();
+
+		try (ResultSet resultSet = connection.getMetaData().getPrimaryKeys(null, names[1], names[0])) {
+			while (resultSet.next()) {
+				keyColumnNameMap.put(resultSet.getInt("KEY_SEQ"), resultSet.getString("COLUMN_NAME"));
+			}
+		}
+
+		return new ArrayList<String>(keyColumnNameMap.values());
+	}
+
+	@Override
+	public int getIndexCount(Connection connection, String tableName) throws SQLException {
+		String[] names = getNames(tableName);
+		Set<String> indexNameSet = new HashSet<String>();
+
+		try (ResultSet resultSet = connection.getMetaData().getIndexInfo(null, names[1], names[0], false, true)) {
+			while (resultSet.next()) {
+				indexNameSet.add(resultSet.getString("INDEX_NAME"));
+			}
+		}
+
+		return indexNameSet.size();
+	}
+
+	@Override
+	public boolean isTableExists(Connection connection, String tableName) throws SQLException {
+		String[] names = getNames(tableName);
+
+		try (ResultSet resultSet = connection.getMetaData().getTables(null, names[1], names[0], null)) {
+			return resultSet.next();
+		}
+	}
+
+	@Override
+	public TableDefinition getTableDefinition(Connection connection, String tableName) throws SQLException {
+		DatabaseMetaData metadata = connection.getMetaData();
+		String[] names = getNames(tableName);
+		TableDefinition tableDefinition = new TableDefinition(tableName);
+
+		try (ResultSet resultSet = metadata.getColumns(null, names[1], names[0], null)) {
+			while (resultSet.next()) {
+				StringBuilder column = new StringBuilder();
+				column.append("\"").append(resultSet.getString("COLUMN_NAME")).append("\" ");
+				column.append(getColumnType(resultSet.getString("TYPE_NAME"), resultSet.getInt("COLUMN_SIZE"),
+						resultSet.getInt("DECIMAL_DIGITS")));
+
+				if (resultSet.getInt("NULLABLE") == DatabaseMetaData.columnNoNulls) {
+					column.append(" not null");
+				}
+
+				tableDefinition.addColumn(column.toString());
+			}
+		}
+
+		String primaryKeyName = null;
+		Map<Integer, String> keyColumnNameMap = new TreeMap<Integer, String>();
+
+		try (ResultSet resultSet = metadata.getPrimaryKeys(null, names[1], names[0])) {
+			while (resultSet.next()) {
+				primaryKeyName = resultSet.getString("PK_NAME");
+				keyColumnNameMap.put(resultSet.getInt("KEY_SEQ"), resultSet.getString("COLUMN_NAME"));
+			}
+		}
+
+		if (!keyColumnNameMap.isEmpty()) {
+			IndexDefinition primaryKey = new IndexDefinition(primaryKeyName, true, true, false);
+			for (String keyColumnName : keyColumnNameMap.values()) {
+				primaryKey.addKey("\"" + keyColumnName + "\"");
+			}
+
+			tableDefinition.addIndexDefinition(primaryKey);
+		}
+
+		/* The index that backs the primary key is created with it. */
+		Map<String, IndexDefinition> indexDefinitionMap = new LinkedHashMap<String, IndexDefinition>();
+
+		try (ResultSet resultSet = metadata.getIndexInfo(null, names[1], names[0], false, false)) {
+			while (resultSet.next()) {
+				String indexName = resultSet.getString("INDEX_NAME");
+				if (indexName.startsWith("PRIMARY_KEY")) {
+					continue;
+				}
+
+				IndexDefinition indexDefinition = indexDefinitionMap.get(indexName);
+				if (indexDefinition == null) {
+					indexDefinition = new IndexDefinition(indexName, false, !resultSet.getBoolean("NON_UNIQUE"), false);
+					indexDefinitionMap.put(indexName, indexDefinition);
+				}
+
+				StringBuilder key = new StringBuilder();
+				key.append("\"").append(resultSet.getString("COLUMN_NAME")).append("\"");
+
+				if ("D".equals(resultSet.getString("ASC_OR_DESC"))) {
+					key.append(" desc");
+				}
+
+				indexDefinition.addKey(key.toString());
+			}
+		}
+
+		for (IndexDefinition indexDefinition : indexDefinitionMap.values()) {
+			tableDefinition.addIndexDefinition(indexDefinition);
+		}
+
+		return tableDefinition;
+	}
+
+	/* H2 does not partition tables. */
+	@Override
+	public List<Object> getRangePartitionUpperBounds(Connection connection, String tableName, String columnName) {
+		return null;
+	}
+
+	@Override
+	public String getFetchSourceRecordsQuery(String tableName, String columnName) {
+		if (tableName == null) {
+			throw new IllegalArgumentException("Table name is null");
+		}
+
+		StringBuilder query = new StringBuilder();
+		query.append("select * from ").append(tableName).append(" order by ");
+		query.append(columnName != null ? columnName : "_ROWID_");
+		query.append(" offset ? rows fetch next ? rows only");
+
+		return query.toString();
+	}
+
+	@Override
+	public String getFetchSourceRecordsInRangeQuery(String tableName, String columnName, boolean hasLowerBound,
+			boolean hasUpperBound) {
+		if (tableName == null) {
+			throw new IllegalArgumentException("Table name is null");
+		}
+
+		if (columnName == null) {
+			throw new IllegalArgumentException("Column name is null");
+		}
+
+		StringBuilder query = new StringBuilder();
+		query.append("select * from ").append(tableName);
+
+		if (hasLowerBound) {
+			query.append(" where ").append(columnName).append(" >= ?");
+		}
+
+		if (hasUpperBound) {
+			query.append(hasLowerBound ? " and " : " where ").append(columnName).append(" < ?");
+		}
+
+		return query.toString();
+	}
+
+	@Override
+	public String getFindKeyAtOffsetQuery(String tableName, String columnName) {
+		if (tableName == null) {
+			throw new IllegalArgumentException("Table name is null");
+		}
+
+		if (columnName == null) {
+			throw new IllegalArgumentException("Column name is null");
+		}
+
+		StringBuilder query = new StringBuilder();
+		query.append("select ").append(columnName).append(" from ").append(tableName).append(" order by ")
+				.append(columnName).append(" offset ? rows fetch next 1 rows only");
+
+		return query.toString();
+	}
+
+	@Override
+	public String getScanSourceRecordsQuery(String tableName) {
+		if (tableName == null) {
+			throw new IllegalArgumentException("Table name is null");
+		}
+
+		return "select * from " + tableName;
+	}
+
+	/* An embedded database has no round trips to save. */
+	@Override
+	public int getFetchSize(int batchCount) {
+		return 0;
+	}
+
+	@Override
+	public String getInsertRecordToDestinationQuery(String tableName, int columnCount) {
+		if (tableName == null) {
+			throw new IllegalArgumentException("Table name is null");
+		}
+
+		StringBuilder query = new StringBuilder();
+		query.append("insert into ").append(tableName).append(" values (");
+		appendParameters(query, columnCount);
+		query.append(")");
+
+		return query.toString();
+	}
+
+	/* 'MERGE INTO ... KEY' matches the row by its key, so no column is bound twice. */
+	@Override
+	public String getUpsertRecordToDestinationQuery(String tableName, List<String> columnNameList,
+			List<String> keyColumnNameList) {
+		if (tableName == null) {
+			throw new IllegalArgumentException("Table name is null");
+		}
+
+		if (columnNameList == null || columnNameList.isEmpty()) {
+			throw new IllegalArgumentException("Column name list is empty");
+		}
+
+		if (keyColumnNameList == null || keyColumnNameList.isEmpty()) {
+			throw new IllegalArgumentException(String.format("No primary key found for table: %s", tableName));
+		}
+
+		StringBuilder query = new StringBuilder();
+		query.append("merge into ").append(tableName).append(" key (").append(String.join(", ", keyColumnNameList))
+				.append(") values (");
+		appendParameters(query, columnNameList.size());
+		query.append(")");
+
+		return query.toString();
+	}
+
+	@Override
+	public int[] getUpsertUpdateColumnIndexes(List<String> columnNameList, List<String> keyColumnNameList) {
+		return new int[0];
+	}
+
+	@Override
+	public String getCreateIndexQuery(String tableName, IndexDefinition indexDefinition) {
+		StringBuilder query = new StringBuilder();
+
+		if (indexDefinition.isPrimaryKey()) {
+			query.append("alter table ").append(tableName).append(" add constraint \"")
+					.append(indexDefinition.getIndexName()).append("\" primary key (");
+		} else {
+			query.append("create ");
+
+			if (indexDefinition.isUnique()) {
+				query.append("unique ");
+			}
+
+			query.append("index \"").append(indexDefinition.getIndexName()).append("\" on ").append(tableName)
+					.append(" (");
+		}
+
+		query.append(String.join(", ", indexDefinition.getKeyList()));
+		query.append(")");
+
+		return query.toString();
+	}
+
+	private static String getColumnType(String typeName, int columnSize, int decimalDigits) {
+		switch (typeName) {
+		case "CHARACTER":
+		case "CHARACTER VARYING":
+		case "VARCHAR_IGNORECASE":
+		case "BINARY":
+		case "BINARY VARYING":
+			return String.format("%s(%d)", typeName, columnSize);
+		case "NUMERIC":
+		case "DECIMAL":
+			return String.format("%s(%d, %d)", typeName, columnSize, decimalDigits);
+		default:
+			return typeName;
+		}
+	}
+
+	private static void appendParameters(StringBuilder query, int count) {
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				query.append(", ");
+			}
+
+			query.append("?");
+		}
+	}
+
+	/* Splits an optional schema name off the table name, as {table name, schema name or null}, in upper case. */
+	private static String[] getNames(String tableName) {
+		String upperTableName = tableName.toUpperCase();
+
+		int indexOfDot = upperTableName.indexOf(".");
+		if (indexOfDot > 0) {
+			return new String[] { upperTableName.substring(indexOfDot + 1), upperTableName.substring(0, indexOfDot) };
+		}
+
+		return new String[] { upperTableName, null };
+	}
+}
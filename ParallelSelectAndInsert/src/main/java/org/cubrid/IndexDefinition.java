@@ -0,0 +1,45 @@
+package org.cubrid;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class IndexDefinition {
+	private final String indexName;
+	private final boolean isPrimaryKey;
+	private final boolean isUnique;
+	private final boolean isReverse;
+	private final List<String> keyList;
+
+	public IndexDefinition(String indexName, boolean isPrimaryKey, boolean isUnique, boolean isReverse) {
+		this.indexName = indexName;
+		this.isPrimaryKey = isPrimaryKey;
+		this.isUnique = isUnique;
+		this.isReverse = isReverse;
+		this.keyList = new ArrayList<String>();
+	}
+
+	public String getIndexName() {
+		return indexName;
+	}
+
+	public boolean isPrimaryKey() {
+		return isPrimaryKey;
+	}
+
+	public boolean isUnique() {
+		return isUnique;
+	}
+
+	public boolean isReverse() {
+		return isReverse;
+	}
+
+	public List<String> getKeyList() {
+		return keyList;
+	}
+
+	/* Key columns in key order, as the dialect writes them, such as "[name] desc" or "[name](10)" for a prefix. */
+	public void addKey(String key) {
+		keyList.add(key);
+	}
+}
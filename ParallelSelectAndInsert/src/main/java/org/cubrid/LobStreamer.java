@@ -0,0 +1,145 @@
+package org.cubrid;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/*-
+ * Copies BLOB and CLOB values from source locators into new destination LOBs, in fixed-size chunks.
+ *
+ * A LOB is never read into the heap as a whole. The copy task keeps only the source locator in the batch,
+ * and the writer streams it into a LOB created on its own destination connection
+ * through a buffer it reuses for every value.
+ *
+ * Not thread safe, each writer has its own.
+ */
+public class LobStreamer {
+	public static final int LOB_BUFFER_SIZE = 64 * 1024;
+
+	private final Connection destinationConnection;
+	private final List<Object> createdLobList;
+
+	private byte[] byteBuffer;
+	private char[] charBuffer;
+
+	public LobStreamer(Connection destinationConnection) {
+		this.destinationConnection = destinationConnection;
+		this.createdLobList = new ArrayList<Object>();
+
+		this.byteBuffer = null;
+		this.charBuffer = null;
+	}
+
+	/* Returns the 0-based indexes of the BLOB and CLOB columns, or null if there are none. */
+	public static int[] getLobColumnIndexes(ResultSetMetaData metadata) throws SQLException {
+		int columnCount = metadata.getColumnCount();
+		int[] lobColumnIndexes = new int[columnCount];
+		int lobColumnCount = 0;
+
+		for (int i = 0; i < columnCount; i++) {
+			if (isLobType(metadata.getColumnType(i + 1))) {
+				lobColumnIndexes[lobColumnCount++] = i;
+			}
+		}
+
+		if (lobColumnCount == 0) {
+			return null;
+		}
+
+		int[] result = new int[lobColumnCount];
+		System.arraycopy(lobColumnIndexes, 0, result, 0, lobColumnCount);
+
+		return result;
+	}
+
+	public static boolean isLobType(int columnType) {
+		switch (columnType) {
+		case Types.BLOB:
+		case Types.CLOB:
+		case Types.NCLOB:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/* Returns a destination LOB with the contents of the source locator, or the value itself if it is not a LOB. */
+	public Object copy(Object value) throws SQLException {
+		if (value instanceof Blob) {
+			return copyBlob((Blob) value);
+		}
+
+		if (value instanceof Clob) {
+			return copyClob((Clob) value);
+		}
+
+		return value;
+	}
+
+	/* Frees the destination LOBs created since the last call, once the statement that bound them has run. */
+	public void freeCreatedLobs() {
+		for (Object lob : createdLobList) {
+			try {
+				if (lob instanceof Blob) {
+					((Blob) lob).free();
+				} else {
+					((Clob) lob).free();
+				}
+			} catch (SQLException | UnsupportedOperationException e) {
+				/* The driver keeps the locator until the transaction ends. */
+			}
+		}
+
+		createdLobList.clear();
+	}
+
+	private Blob copyBlob(Blob sourceBlob) throws SQLException {
+		if (byteBuffer == null) {
+			byteBuffer = new byte[LOB_BUFFER_SIZE];
+		}
+
+		Blob destinationBlob = destinationConnection.createBlob();
+		createdLobList.add(destinationBlob);
+
+		try (InputStream in = sourceBlob.getBinaryStream(); OutputStream out = destinationBlob.setBinaryStream(1)) {
+			int length;
+			while ((length = in.read(byteBuffer)) != -1) {
+				out.write(byteBuffer, 0, length);
+			}
+		} catch (IOException e) {
+			throw new SQLException("Failed to stream a BLOB value", e);
+		}
+
+		return destinationBlob;
+	}
+
+	private Clob copyClob(Clob sourceClob) throws SQLException {
+		if (charBuffer == null) {
+			charBuffer = new char[LOB_BUFFER_SIZE];
+		}
+
+		Clob destinationClob = destinationConnection.createClob();
+		createdLobList.add(destinationClob);
+
+		try (Reader in = sourceClob.getCharacterStream(); Writer out = destinationClob.setCharacterStream(1)) {
+			int length;
+			while ((length = in.read(charBuffer)) != -1) {
+				out.write(charBuffer, 0, length);
+			}
+		} catch (IOException e) {
+			throw new SQLException("Failed to stream a CLOB value", e);
+		}
+
+		return destinationClob;
+	}
+}
@@ -0,0 +1,71 @@
+package org.cubrid;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/* Integer columns, kept as longs and bound with the setter of their own type. */
+public class LongColumnVector extends ColumnVector {
+	private final int columnType;
+	private long[] values;
+
+	public LongColumnVector(int columnType, int capacity) {
+		super(capacity);
+
+		this.columnType = columnType;
+		this.values = new long[Math.max(1, capacity)];
+	}
+
+	@Override
+	public long read(ResultSet resultSet, int columnIndex, int rowNum) throws SQLException {
+		values[rowNum] = resultSet.getLong(columnIndex);
+
+		if (resultSet.wasNull()) {
+			setNull(rowNum);
+			return 1;
+		}
+
+		return Long.BYTES;
+	}
+
+	@Override
+	public void bind(PreparedStatement statement, int parameterIndex, int rowNum) throws SQLException {
+		if (isNull(rowNum)) {
+			statement.setNull(parameterIndex, columnType);
+			return;
+		}
+
+		switch (columnType) {
+		case Types.INTEGER:
+			statement.setInt(parameterIndex, (int) values[rowNum]);
+			break;
+		case Types.SMALLINT:
+		case Types.TINYINT:
+			statement.setShort(parameterIndex, (short) values[rowNum]);
+			break;
+		default:
+			statement.setLong(parameterIndex, values[rowNum]);
+			break;
+		}
+	}
+
+	@Override
+	public Object getValue(int rowNum) {
+		if (isNull(rowNum)) {
+			return null;
+		}
+
+		return values[rowNum];
+	}
+
+	@Override
+	public void ensureCapacity(int capacity) {
+		super.ensureCapacity(capacity);
+
+		if (capacity > values.length) {
+			values = Arrays.copyOf(values, Math.max(capacity, values.length * 2));
+		}
+	}
+}
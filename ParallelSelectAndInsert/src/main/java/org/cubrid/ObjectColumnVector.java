@@ -0,0 +1,76 @@
+package org.cubrid;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/*-
+ * The columns that have no primitive form, such as decimals, dates and binaries, kept as the driver's objects.
+ * A LOB column is fetched as a locator, and its contents are streamed later by the writers.
+ */
+public class ObjectColumnVector extends ColumnVector {
+	private final int columnType;
+	private Object[] values;
+
+	public ObjectColumnVector(int columnType, int capacity) {
+		super(capacity);
+
+		this.columnType = columnType;
+		this.values = new Object[Math.max(1, capacity)];
+	}
+
+	@Override
+	public long read(ResultSet resultSet, int columnIndex, int rowNum) throws SQLException {
+		Object value = null;
+
+		switch (columnType) {
+		case Types.BLOB:
+			value = resultSet.getBlob(columnIndex);
+			break;
+		case Types.CLOB:
+		case Types.NCLOB:
+			value = resultSet.getClob(columnIndex);
+			break;
+		default:
+			value = resultSet.getObject(columnIndex);
+			break;
+		}
+
+		values[rowNum] = value;
+
+		if (value == null) {
+			setNull(rowNum);
+		}
+
+		return RowSizeEstimator.estimateSize(value);
+	}
+
+	@Override
+	public void bind(PreparedStatement statement, int parameterIndex, int rowNum) throws SQLException {
+		statement.setObject(parameterIndex, values[rowNum]);
+	}
+
+	@Override
+	public Object getValue(int rowNum) {
+		return values[rowNum];
+	}
+
+	@Override
+	public void ensureCapacity(int capacity) {
+		super.ensureCapacity(capacity);
+
+		if (capacity > values.length) {
+			values = Arrays.copyOf(values, Math.max(capacity, values.length * 2));
+		}
+	}
+
+	/* The objects must not outlive the batch. */
+	@Override
+	public void clear(int size) {
+		super.clear(size);
+
+		Arrays.fill(values, 0, Math.min(size, values.length), null);
+	}
+}
@@ -3,13 +3,20 @@ package org.cubrid;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.IntStream;
@@ -19,10 +26,18 @@ import javax.transaction.xa.XAException;
 import javax.transaction.xa.XAResource;
 import javax.transaction.xa.Xid;
 
-public class ParallelSelectAndInsert {
+public class ParallelSelectAndInsert implements BranchRecovery {
 	private static final Logger LOGGER = Logger.getLogger(ParallelSelectAndInsert.class.getName());
 
 	public static final int DEFAULT_BATCH_COUNT = 1000;
+	public static final long DEFAULT_BATCH_BYTES = 8L * 1024 * 1024;
+	public static final int DEFAULT_MAX_RETRY_COUNT = 3;
+
+	/* The XA phases run on all branches at once, but on no more threads than this. */
+	public static final int MAX_XA_THREAD_COUNT = 64;
+
+	/* With auto-tuning, chunks are smaller so that the active workers can take over the parked ones' work. */
+	public static final int AUTO_TUNE_CHUNKS_PER_THREAD = 8;
 
 	private ConnectionManager manager;
 	private XidGenerator xidGenerator;
@@ -30,23 +45,192 @@ public class ParallelSelectAndInsert {
 	private String sourceTableName;
 	private String destinationTableName;
 	private int numThreads;
+	private int numDestinations;
 	private int batchCount;
+	private int fetchSize;
+	private long batchBytes;
+	private long heapBudget;
+	private WriteMode writeMode;
+	private List<String> destinationKeyColumnNameList;
+	private boolean isAutoTune;
+	private String shardColumnName;
+	private List<String> shardRangeBoundaryList;
+	private String rejectFileName;
+	private int maxRetryCount;
+	private boolean isCreateTable;
+	private TableDefinition tableDefinition;
+	private List<Integer> createdDestinationNumList;
+	private CopyPlan plan;
+	private Dialect sourceDialect;
+	private List<Dialect> destinationDialectList;
 
 	private ProgressBarTask progressBar;
+	private ConcurrencyController concurrencyController;
+	private RateLimiter rateLimiter;
+	private CopyControl copyControl;
+	private RejectWriter rejectWriter;
 	
 	private List<XAConnection> destinationXAConnectionList;
 	private List<XAResource> destinationXAResourceList;
 	private List<Xid> destinationXidList;
 	private List<Connection> destinationConnectionList;
+	private List<Boolean> destinationReadOnlyList;
 	private List<CopyTask> copyTaskList;
 	private List<Future<Void>> copyFutureList;
 
 	private ExecutorService executorService;
+	private List<ExecutorService> writerExecutorServiceList;
+	private ExecutorService controllerExecutorService;
+	private ExecutorService xaExecutorService;
 
 	public ParallelSelectAndInsert() {
 		this.manager = new ConnectionManager();
 		this.xidGenerator = new XidGenerator();
 		this.batchCount = DEFAULT_BATCH_COUNT;
+		this.fetchSize = 0;
+		this.batchBytes = DEFAULT_BATCH_BYTES;
+		this.heapBudget = Runtime.getRuntime().maxMemory() / 2;
+		this.writeMode = WriteMode.INSERT;
+		this.isAutoTune = false;
+		this.maxRetryCount = DEFAULT_MAX_RETRY_COUNT;
+		this.isCreateTable = false;
+		this.createdDestinationNumList = new ArrayList<Integer>();
+		this.plan = null;
+	}
+
+	/* Creates the destination tables from the source definition, and adds their indexes after the load. */
+	public void setCreateTable(boolean isCreateTable) {
+		this.isCreateTable = isCreateTable;
+	}
+
+	/*-
+	 * Copies as planned, with its batch and fetch sizes, chunks and copy mode, and its row count and source index
+	 * instead of reading them again. The plan must have been made with the current settings,
+	 * and the source table is expected not to change in between.
+	 */
+	public void setPlan(CopyPlan plan) {
+		this.plan = plan;
+
+		if (plan != null) {
+			setBatchCount(plan.getBatchCount());
+			setFetchSize(plan.getFetchSize());
+		}
+	}
+
+	public void setBatchCount(int batchCount) {
+		if (batchCount > 0) {
+			this.batchCount = batchCount;
+		}
+	}
+
+	/* The number of rows the source driver fetches per round trip, or 0 for the driver's default. */
+	public void setFetchSize(int fetchSize) {
+		if (fetchSize >= 0) {
+			this.fetchSize = fetchSize;
+		}
+	}
+
+	public void setBatchBytes(long batchBytes) {
+		if (batchBytes > 0) {
+			this.batchBytes = batchBytes;
+		}
+	}
+
+	/* The memory that the in-flight batches of all threads may use together. */
+	public void setHeapBudget(long heapBudget) {
+		if (heapBudget > 0) {
+			this.heapBudget = heapBudget;
+		}
+	}
+
+	public void setWriteMode(WriteMode writeMode) {
+		if (writeMode != null) {
+			this.writeMode = writeMode;
+		}
+	}
+
+	public void setAutoTune(boolean isAutoTune) {
+		this.isAutoTune = isAutoTune;
+	}
+
+	/* Routes each row to one destination by its shard key, instead of copying it to every destination. */
+	public void setShardKey(String shardColumnName, List<String> shardRangeBoundaryList) {
+		this.shardColumnName = shardColumnName;
+		this.shardRangeBoundaryList = shardRangeBoundaryList;
+	}
+
+	/* Isolates the rows that fail to insert and writes them to this file, instead of failing the copy. */
+	public void setRejectFileName(String rejectFileName) {
+		this.rejectFileName = rejectFileName;
+	}
+
+	/* The number of times in all a thread reopens its branches and copies its chunks again after transient errors. */
+	public void setMaxRetryCount(int maxRetryCount) {
+		if (maxRetryCount >= 0) {
+			this.maxRetryCount = maxRetryCount;
+		}
+	}
+
+	/*-
+	 * A batch is flushed when either its row count or its estimated size reaches the limit,
+	 * and the size limit is a fair share of the heap budget so that wide rows cannot exhaust memory.
+	 */
+	public static long getBatchBytesPerThread(long batchBytes, long heapBudget, int numThreads) {
+		return Math.max(1, Math.min(batchBytes, heapBudget / ((long) numThreads * CopyTask.BUFFERED_BATCH_COUNT)));
+	}
+
+	/*-
+	 * Splits each destination partition, from one offset to the next, into chunks of at most maxRowCountPerChunk rows,
+	 * so that no chunk crosses a partition boundary and a large partition is still copied by several threads.
+	 * The chunks are queued a partition at a time in turn, so that the readers copy different partitions at once
+	 * while there are enough of them.
+	 */
+	public static List<CopyChunk> getPartitionChunks(List<Long> partitionOffsetList, long maxRowCountPerChunk) {
+		maxRowCountPerChunk = Math.max(1, maxRowCountPerChunk);
+
+		int numPartitions = partitionOffsetList.size() - 1;
+		long[] numPartitionChunks = new long[numPartitions];
+		long maxNumPartitionChunks = 0;
+
+		for (int i = 0; i < numPartitions; i++) {
+			long partitionRowCount = partitionOffsetList.get(i + 1) - partitionOffsetList.get(i);
+			numPartitionChunks[i] = (partitionRowCount + maxRowCountPerChunk - 1) / maxRowCountPerChunk;
+			maxNumPartitionChunks = Math.max(maxNumPartitionChunks, numPartitionChunks[i]);
+		}
+
+		List<CopyChunk> chunkList = new ArrayList<CopyChunk>();
+		for (long j = 0; j < maxNumPartitionChunks; j++) {
+			for (int i = 0; i < numPartitions; i++) {
+				if (j >= numPartitionChunks[i]) {
+					continue;
+				}
+
+				long offset = partitionOffsetList.get(i);
+				long partitionRowCount = partitionOffsetList.get(i + 1) - offset;
+				long chunkOffset = offset + partitionRowCount * j / numPartitionChunks[i];
+				long nextChunkOffset = offset + partitionRowCount * (j + 1) / numPartitionChunks[i];
+
+				chunkList.add(new CopyChunk(chunkList.size(), chunkOffset, nextChunkOffset - chunkOffset));
+			}
+		}
+
+		return chunkList;
+	}
+
+	/* Plans the copy with the current settings, without writing anything. */
+	public CopyPlan plan(String paramSourceTableName, String paramDestinationTableName, int paramNumThreads)
+			throws ClassNotFoundException, IOException, SQLException {
+		String planDestinationTableName = paramDestinationTableName;
+		if (planDestinationTableName == null) {
+			planDestinationTableName = paramSourceTableName;
+		}
+
+		CopyPlanner planner = new CopyPlanner(manager);
+		planner.setServerSide(isServerSide(paramSourceTableName, planDestinationTableName));
+		planner.setCreateTable(isCreateTable);
+
+		return planner.plan(paramSourceTableName, planDestinationTableName, paramNumThreads, isAutoTune, batchBytes,
+				heapBudget);
 	}
 
 	public void start(String paramSourceTableName, String paramDestinationTableName, int paramNumThreads, ProgressBarTask paramProgressBar) {
@@ -92,17 +276,146 @@ public class ParallelSelectAndInsert {
 			sourceConnection.setAutoCommit(false);
 			sourceConnection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
 
-			long rowCount = manager.getTableRowCount(sourceConnection, sourceTableName);
+			long rowCount = 0;
+			String sourceIndexFirstColumnName = null;
+			boolean isServerSide = false;
+			List<Long> partitionOffsetList = null;
+
+			/* An applied plan has already read these, and its thread count and chunks follow from them. */
+			if (plan != null) {
+				rowCount = plan.getRowCount();
+				sourceIndexFirstColumnName = plan.getSourceIndexFirstColumnName();
+				isServerSide = plan.isServerSide();
+				partitionOffsetList = plan.getPartitionOffsetList();
+			} else {
+				rowCount = manager.getTableRowCount(sourceConnection, sourceTableName);
+				sourceIndexFirstColumnName = manager.getFirstColumnOfUsableIndex(sourceConnection, sourceTableName);
+				isServerSide = isServerSide(sourceTableName, destinationTableName);
+
+				if (sourceIndexFirstColumnName != null && !isCreateTable) {
+					partitionOffsetList = manager.getPartitionOffsets(sourceConnection, sourceTableName,
+							destinationTableName, sourceIndexFirstColumnName, rowCount);
+				}
+			}
+
 			if (rowCount == 0) {
 				LOGGER.log(Level.WARNING, "No data to copy");
 				return;
 			}
-			long rowCountPerThread = rowCount / numThreads;
-			long remainRowCount = rowCount % numThreads;
+
+			/*-
+			 * Without a usable index, one copy task reads the whole table in a single scan,
+			 * and its batches are spread over writers on the branches of every thread.
+			 */
+			int numReaders = numThreads;
+			int writerLaneCount = 1;
+			if (sourceIndexFirstColumnName == null && isServerSide) {
+				/* A single 'INSERT ... SELECT' copies the whole table on a single branch. */
+				numThreads = 1;
+				numReaders = 1;
+			} else if (sourceIndexFirstColumnName == null) {
+				numReaders = 1;
+				writerLaneCount = numThreads;
+
+				LOGGER.log(Level.INFO, String.format("No usable index, scanning %s once for %s writers",
+						sourceTableName, numThreads));
+			}
+
+			Queue<CopyChunk> chunkQueue = new ConcurrentLinkedQueue<CopyChunk>();
+			int numChunks = numReaders;
+			if (plan != null && numReaders > 1) {
+				numChunks = plan.getNumChunks();
+			} else if (isAutoTune && numReaders > 1) {
+				numChunks = numReaders * AUTO_TUNE_CHUNKS_PER_THREAD;
+			}
+
+			if (partitionOffsetList != null) {
+				long maxRowCountPerChunk = (rowCount + numChunks - 1) / numChunks;
+				if (plan != null) {
+					maxRowCountPerChunk = plan.getRowCountPerChunk();
+				}
+
+				chunkQueue.addAll(getPartitionChunks(partitionOffsetList, maxRowCountPerChunk));
+
+				numReaders = Math.min(numReaders, chunkQueue.size());
+				numThreads = numReaders;
+
+				LOGGER.log(Level.INFO, String.format("%s is partitioned by range on %s, copying %s partitions in %s chunks",
+						destinationTableName, sourceIndexFirstColumnName, partitionOffsetList.size() - 1,
+						chunkQueue.size()));
+			} else {
+				long rowCountPerChunk = rowCount / numChunks;
+				long remainRowCount = rowCount % numChunks;
+
+				for (int i = 0; i < numChunks; i++) {
+					if (i == (numChunks - 1)) {
+						chunkQueue.add(new CopyChunk(i, rowCountPerChunk * i, rowCountPerChunk + remainRowCount));
+					} else if (rowCountPerChunk > 0) {
+						chunkQueue.add(new CopyChunk(i, rowCountPerChunk * i, rowCountPerChunk));
+					}
+				}
+			}
+
+			if (sourceIndexFirstColumnName != null) {
+				chunkQueue = getKeyRangeChunks(sourceConnection, sourceIndexFirstColumnName, chunkQueue, rowCount);
+			}
+
+			if (isServerSide) {
+				LOGGER.log(Level.INFO, String.format("%s is in the destination database, copying on the server by %s threads",
+						sourceTableName, numReaders));
+			}
 			
 			progressBar.setTotalOfMain(rowCount);
 
-			initXAResources(numThreads);
+			if (isCreateTable && writeMode == WriteMode.UPSERT) {
+				LOGGER.log(Level.SEVERE, "Upsert write mode requires an existing destination table with a primary key");
+				return;
+			}
+
+			if (writeMode == WriteMode.UPSERT) {
+				try (Connection destinationConnection = manager.getDestinationConnection()) {
+					destinationKeyColumnNameList = manager.getPrimaryKeyColumnNames(destinationConnection,
+							destinationTableName);
+					destinationConnection.rollback();
+				}
+
+				if (destinationKeyColumnNameList.isEmpty()) {
+					LOGGER.log(Level.SEVERE,
+							String.format("No primary key found for table %s, required by upsert write mode",
+									destinationTableName));
+					return;
+				}
+			}
+
+			numDestinations = manager.getDestinationCount();
+
+			sourceDialect = manager.getSourceDialect();
+			destinationDialectList = new ArrayList<Dialect>(numDestinations);
+			for (int i = 0; i < numDestinations; i++) {
+				destinationDialectList.add(manager.getDestinationDialect(i));
+			}
+
+			ShardRouter shardRouter = null;
+			if (shardColumnName != null) {
+				shardRouter = new ShardRouter(shardColumnName, numDestinations, shardRangeBoundaryList);
+			}
+
+			/* The indexes are added after the load, so that the rows are inserted into bare heaps. */
+			if (isCreateTable) {
+				/* Column types and quoting are read in the source dialect and written as they are. */
+				for (Dialect destinationDialect : destinationDialectList) {
+					if (!destinationDialect.getName().equals(sourceDialect.getName())) {
+						LOGGER.log(Level.SEVERE, String.format("Cannot create a %s table from a %s table",
+								destinationDialect.getName(), sourceDialect.getName()));
+						return;
+					}
+				}
+
+				tableDefinition = manager.getTableDefinition(sourceConnection, sourceTableName);
+				createDestinationTables();
+			}
+
+			initXAResources(numDestinations, numThreads);
 			assert (destinationXAConnectionList != null);
 			assert (destinationXAResourceList != null);
 			assert (destinationXidList != null);
@@ -110,37 +423,85 @@ public class ParallelSelectAndInsert {
 
 			startXAResources();
 
-			executorService = Executors.newFixedThreadPool(numThreads);
+			executorService = Executors.newFixedThreadPool(numThreads, new CopyThreadFactory());
+
+			/* Each destination has its own writer pool, so that a slow destination does not hold up the others. */
+			writerExecutorServiceList = new ArrayList<ExecutorService>(numDestinations);
+			for (int i = 0; i < numDestinations; i++) {
+				writerExecutorServiceList
+						.add(Executors.newFixedThreadPool(numThreads, new CopyThreadFactory("writer-" + (i + 1))));
+			}
 
-			String sourceIndexFirstColumnName = manager.getFirstColumnOfUsableIndex(sourceConnection, sourceTableName);
+			controllerExecutorService = Executors.newCachedThreadPool();
 
-			copyTaskList = new ArrayList<CopyTask>(numThreads);
-			for (int i = 0; i < numThreads; i++) {
-				Connection destinationConnection = destinationConnectionList.get(i);
-				assert (destinationConnectionList.get(i) != null);
+			/* Without auto-tuning, the controller only parks the workers that are turned off over JMX. */
+			concurrencyController = new ConcurrencyController(numReaders);
+			if (isAutoTune && numReaders > 1) {
+				concurrencyController.setActiveWorkerCount(numReaders / 2);
+				controllerExecutorService.submit(concurrencyController);
+			}
+
+			rateLimiter = new RateLimiter(manager.getSourceMaxRowsPerSecond(), manager.getSourceMaxBytesPerSecond());
+			rateLimiter.setManager(manager);
+			controllerExecutorService.submit(rateLimiter);
+
+			long batchBytesPerThread = getBatchBytesPerThread(batchBytes, heapBudget, numThreads);
+			long maxBatchBytesPerThread = getBatchBytesPerThread(Long.MAX_VALUE, heapBudget, numThreads);
+
+			copyControl = new CopyControl(numReaders, rowCount, batchCount, batchBytesPerThread, maxBatchBytesPerThread,
+					concurrencyController, rateLimiter);
+			copyControl.register();
+
+			if (rejectFileName != null) {
+				rejectWriter = new RejectWriter(rejectFileName);
+			}
+
+			copyTaskList = new ArrayList<CopyTask>(numReaders);
+			for (int i = 0; i < numReaders; i++) {
+				/*-
+				 * The branches of thread t are at t, numThreads + t, 2 * numThreads + t, ...
+				 * Copy task i writes on the branches of threads i * writerLaneCount to (i + 1) * writerLaneCount - 1.
+				 */
+				List<Connection> threadDestinationConnectionList = new ArrayList<Connection>(
+						numDestinations * writerLaneCount);
+				for (int j = 0; j < numDestinations; j++) {
+					for (int k = 0; k < writerLaneCount; k++) {
+						Connection destinationConnection = destinationConnectionList
+								.get(j * numThreads + i * writerLaneCount + k);
+						assert (destinationConnection != null);
+
+						threadDestinationConnectionList.add(destinationConnection);
+					}
+				}
 
 				CopyTaskInfo copyTaskInfo = new CopyTaskInfo();
 				copyTaskInfo.setThreadNum(i);
 				copyTaskInfo.setSourceConnection(sourceConnection);
 				copyTaskInfo.setSourceTableName(sourceTableName);
+				copyTaskInfo.setSourceDialect(sourceDialect);
 
 				if (sourceIndexFirstColumnName != null) {
 					copyTaskInfo.setSourceIndexFirstColumnName(sourceIndexFirstColumnName);
 				}
 
-				if (i == (numThreads - 1)) {
-					copyTaskInfo.setRowCount(rowCountPerThread + remainRowCount);
-					progressBar.setTotalPerThread(i, rowCountPerThread + remainRowCount);
-				} else {
-					copyTaskInfo.setRowCount(rowCountPerThread);
-					progressBar.setTotalPerThread(i, rowCountPerThread);
-				}
-
-				copyTaskInfo.setOffset(rowCountPerThread * i);
-				copyTaskInfo.setDestinationConnection(destinationConnection);
+				copyTaskInfo.setChunkQueue(chunkQueue);
+				copyTaskInfo.setDestinationConnectionList(threadDestinationConnectionList);
+				copyTaskInfo.setWriterExecutorServiceList(writerExecutorServiceList);
 				copyTaskInfo.setDestinationTableName(destinationTableName);
-				copyTaskInfo.setBatchCount(batchCount);
+				copyTaskInfo.setDestinationDialectList(destinationDialectList);
+				copyTaskInfo.setWriteMode(writeMode);
+				copyTaskInfo.setDestinationKeyColumnNameList(destinationKeyColumnNameList);
 				copyTaskInfo.setProgressBar(progressBar);
+				copyTaskInfo.setConcurrencyController(concurrencyController);
+				copyTaskInfo.setRateLimiter(rateLimiter);
+				copyTaskInfo.setShardRouter(shardRouter);
+				copyTaskInfo.setCopyControl(copyControl);
+				copyTaskInfo.setRejectWriter(rejectWriter);
+				copyTaskInfo.setBranchRecovery(this);
+				copyTaskInfo.setMaxRetryCount(maxRetryCount);
+				copyTaskInfo.setFetchSize(fetchSize);
+				copyTaskInfo.setWriterLaneCount(writerLaneCount);
+				copyTaskInfo.setServerSide(isServerSide);
 
 				copyTaskList.add(new CopyTask(copyTaskInfo));
 			}
@@ -152,46 +513,277 @@ public class ParallelSelectAndInsert {
 			}
 			assert (copyFutureList != null);
 
-			for (int i = 0; i < numThreads; i++) {
-				copyFutureList.get(i).get();
+			/*-
+			 * A copy task returns once its writers have executed and released every batch, so the copy is done
+			 * when all of them are. The progress is not waited for, because rejected rows are left out of it
+			 * and a copy on the server may find more or fewer rows than were counted.
+			 */
+			for (Future<Void> copyFuture : copyFutureList) {
+				copyFuture.get();
 			}
-			
-			while (!progressBar.isFinish()) {
-				;
+
+			/* A copy on the server reads the source in the snapshots of the branches, which may hold other rows. */
+			long copiedRowCount = copyControl.getCopiedRowCount() + copyControl.getRejectedRowCount();
+			if (copiedRowCount != rowCount) {
+				LOGGER.log(Level.INFO, String.format("%s rows were copied or rejected of the %s rows counted at the start",
+						copiedRowCount, rowCount));
 			}
-			
+
 			Thread.sleep(1000);
 			
 			/* Because it is a select query, no commit is required. */
 			sourceConnection.rollback();
 
 			endXAResources();
+
+			/* The rows are committed, so the tables this run created are kept from here on. */
+			createdDestinationNumList.clear();
+
 			closeXAResources();
+
+			if (tableDefinition != null) {
+				createDestinationIndexes();
+			}
 			
 			executorService.shutdown();
 
+			for (ExecutorService writerExecutorService : writerExecutorServiceList) {
+				writerExecutorService.shutdown();
+			}
+
+			if (controllerExecutorService != null) {
+				controllerExecutorService.shutdownNow();
+			}
+
+			copyControl.unregister();
+
+			if (rejectWriter != null) {
+				rejectWriter.close();
+
+				if (rejectWriter.getRejectedRowCount() > 0) {
+					LOGGER.log(Level.WARNING, String.format("%s rows were rejected, see %s",
+							rejectWriter.getRejectedRowCount(), rejectFileName));
+				}
+			}
+
 			return;
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 
+		/* The branches may still be active, and a branch must be ended before it can be rolled back. */
 		try {
-			rollbackXAResources();
-			closeXAResources();
-		} catch (SQLException e) {
+			if (destinationXAResourceList != null && xaExecutorService != null) {
+				failXAResources();
+			}
+		} catch (XAException e) {
 			e.printStackTrace();
+		}
+
+		try {
+			if (destinationXAResourceList != null && xaExecutorService != null) {
+				rollbackXAResources();
+			}
 		} catch (XAException e) {
 			e.printStackTrace();
 		}
+
+		try {
+			closeXAResources();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+
+		dropCreatedDestinationTables();
 		
-		if (!executorService.isTerminated()) {
+		if (executorService != null && !executorService.isTerminated()) {
 			executorService.shutdownNow();
 		}
 
+		if (writerExecutorServiceList != null) {
+			for (ExecutorService writerExecutorService : writerExecutorServiceList) {
+				writerExecutorService.shutdownNow();
+			}
+		}
+
+		if (controllerExecutorService != null) {
+			controllerExecutorService.shutdownNow();
+		}
+
+		if (copyControl != null) {
+			copyControl.unregister();
+		}
+
+		if (rejectWriter != null) {
+			try {
+				rejectWriter.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+
 		return;
 	}
 
-	private void initXAResources(int numThreads)
+	/*-
+	 * With the source table in the destination database, each chunk is copied by 'INSERT ... SELECT'
+	 * on a branch and its rows never reach the client. Upserts and rejects need the rows, so they do not.
+	 * Neither does a copy with a source rate limit, since a single statement cannot be paced by rows or bytes.
+	 */
+	private boolean isServerSide(String sourceTableName, String destinationTableName) throws IOException {
+		return writeMode == WriteMode.INSERT && rejectFileName == null
+				&& manager.getSourceMaxRowsPerSecond() <= 0 && manager.getSourceMaxBytesPerSecond() <= 0
+				&& !sourceTableName.equalsIgnoreCase(destinationTableName) && manager.isSourceOnDestination();
+	}
+
+	/*-
+	 * Bounds each chunk by the index keys where it begins and where it ends, so that its query, a fetch
+	 * or an 'INSERT ... SELECT', seeks to its rows instead of reading and skipping every row before them.
+	 * Rows that share a key at a boundary all go to the later chunk, and chunks left empty are dropped.
+	 */
+	private Queue<CopyChunk> getKeyRangeChunks(Connection sourceConnection, String columnName,
+			Queue<CopyChunk> chunkQueue, long rowCount) throws SQLException {
+		TreeSet<Long> offsetSet = new TreeSet<Long>();
+		for (CopyChunk chunk : chunkQueue) {
+			offsetSet.add(chunk.getOffset());
+			offsetSet.add(chunk.getOffset() + chunk.getRowCount());
+		}
+
+		/* The first row and the end of the table are left unbounded. */
+		List<Long> offsetList = new ArrayList<Long>(offsetSet.subSet(1L, rowCount));
+		List<Object> keyList = manager.getKeysAtOffsets(sourceConnection, sourceTableName, columnName, offsetList);
+
+		Map<Long, Object> keyMap = new HashMap<Long, Object>();
+		for (int i = 0; i < offsetList.size(); i++) {
+			keyMap.put(offsetList.get(i), keyList.get(i));
+		}
+
+		Queue<CopyChunk> keyRangeChunkQueue = new ConcurrentLinkedQueue<CopyChunk>();
+		for (CopyChunk chunk : chunkQueue) {
+			Object lowerBound = keyMap.get(chunk.getOffset());
+			Object upperBound = keyMap.get(chunk.getOffset() + chunk.getRowCount());
+
+			/* A chunk past the last row, or with every row under the key of the next chunk, has nothing to copy. */
+			if (chunk.getRowCount() == 0 || (chunk.getOffset() > 0 && lowerBound == null)) {
+				continue;
+			}
+
+			if (lowerBound != null && lowerBound.equals(upperBound)) {
+				continue;
+			}
+
+			keyRangeChunkQueue.add(new CopyChunk(chunk.getChunkNum(), chunk.getOffset(), chunk.getRowCount(),
+					lowerBound, upperBound));
+		}
+
+		return keyRangeChunkQueue;
+	}
+
+	private void createDestinationTables() throws ClassNotFoundException, IOException, SQLException {
+		String createTableQuery = tableDefinition.getCreateTableQuery(destinationTableName);
+
+		for (int i = 0; i < numDestinations; i++) {
+			try (Connection destinationConnection = manager.getDestinationConnection(i)) {
+				if (manager.isTableExists(destinationConnection, destinationTableName)) {
+					throw new SQLException(String.format("The destination table %s already exists on destination %s",
+							destinationTableName, i + 1));
+				}
+
+				try (Statement statement = destinationConnection.createStatement()) {
+					statement.execute(createTableQuery);
+				}
+
+				destinationConnection.commit();
+				createdDestinationNumList.add(i);
+			} catch (SQLException e) {
+				throw e;
+			}
+		}
+
+		LOGGER.log(Level.INFO, String.format("Created %s on %s destinations", destinationTableName, numDestinations));
+	}
+
+	/* Drops the tables this run created once its branches are rolled back, so that it can be run again with -c. */
+	private void dropCreatedDestinationTables() {
+		for (int destinationNum : createdDestinationNumList) {
+			try (Connection destinationConnection = manager.getDestinationConnection(destinationNum);
+					Statement statement = destinationConnection.createStatement()) {
+				statement.execute("drop table " + destinationTableName);
+				destinationConnection.commit();
+
+				LOGGER.log(Level.INFO, String.format("Dropped %s on destination %s", destinationTableName,
+						destinationNum + 1));
+			} catch (ClassNotFoundException | IOException | SQLException e) {
+				LOGGER.log(Level.WARNING, String.format("Failed to drop %s on destination %s: %s", destinationTableName,
+						destinationNum + 1, e.getMessage()));
+			}
+		}
+
+		createdDestinationNumList.clear();
+	}
+
+	/*-
+	 * Adds the primary key and the indexes to every destination table, each on its own connection and all at once.
+	 * The rows are already committed, so a failed index is reported but does not fail the copy.
+	 */
+	private void createDestinationIndexes() {
+		List<IndexDefinition> indexDefinitionList = tableDefinition.getIndexDefinitionList();
+		int numIndexes = numDestinations * indexDefinitionList.size();
+		if (numIndexes == 0) {
+			return;
+		}
+
+		int numIndexThreads = numIndexes;
+		try {
+			numIndexThreads = Math.min(numIndexes, manager.getDestinationMaxConnections());
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, e.getMessage(), e);
+		}
+
+		ExecutorService indexExecutorService = Executors.newFixedThreadPool(Math.max(1, numIndexThreads),
+				new CopyThreadFactory("index"));
+		List<Future<Void>> indexFutureList = new ArrayList<Future<Void>>(numIndexes);
+
+		for (int i = 0; i < numDestinations; i++) {
+			for (IndexDefinition indexDefinition : indexDefinitionList) {
+				final int destinationNum = i;
+				String createIndexQuery = destinationDialectList.get(destinationNum)
+						.getCreateIndexQuery(destinationTableName, indexDefinition);
+
+				indexFutureList.add(indexExecutorService.submit(() -> {
+					try (Connection destinationConnection = manager.getDestinationConnection(destinationNum);
+							Statement statement = destinationConnection.createStatement()) {
+						statement.execute(createIndexQuery);
+						destinationConnection.commit();
+					}
+
+					return null;
+				}));
+			}
+		}
+
+		for (int i = 0; i < indexFutureList.size(); i++) {
+			IndexDefinition indexDefinition = indexDefinitionList.get(i % indexDefinitionList.size());
+			int destinationNum = i / indexDefinitionList.size();
+
+			try {
+				indexFutureList.get(i).get();
+				LOGGER.log(Level.INFO, String.format("Created the %s index on destination %s",
+						indexDefinition.getIndexName(), destinationNum + 1));
+			} catch (ExecutionException e) {
+				LOGGER.log(Level.SEVERE, String.format("Failed to create the %s index on destination %s: %s",
+						indexDefinition.getIndexName(), destinationNum + 1, e.getCause().getMessage()), e.getCause());
+			} catch (InterruptedException e) {
+				LOGGER.log(Level.SEVERE, e.getMessage(), e);
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+
+		indexExecutorService.shutdown();
+	}
+
+	private void initXAResources(int numDestinations, int numThreads)
 			throws ClassNotFoundException, IllegalArgumentException, IOException, NullPointerException, SQLException {
 		if (manager == null) {
 			throw new NullPointerException("manager is null");
@@ -201,26 +793,170 @@ public class ParallelSelectAndInsert {
 			throw new NullPointerException("xidGenerator is null");
 		}
 
+		if (numDestinations <= 0) {
+			throw new IllegalArgumentException("The number of destinations must be greater than 0");
+		}
+
 		if (numThreads <= 0) {
 			throw new IllegalArgumentException("The number of threads must be greater than 0");
 		}
 
-		destinationXAConnectionList = new ArrayList<XAConnection>(numThreads);
-		destinationXAResourceList = new ArrayList<XAResource>(numThreads);
-		destinationXidList = new ArrayList<Xid>(numThreads);
-		destinationConnectionList = new ArrayList<Connection>(numThreads);
+		int numBranches = numDestinations * numThreads;
+
+		xaExecutorService = Executors.newFixedThreadPool(Math.min(numBranches, MAX_XA_THREAD_COUNT),
+				new CopyThreadFactory("xa"));
+
+		destinationXAConnectionList = new ArrayList<XAConnection>(Collections.nCopies(numBranches, (XAConnection) null));
+		destinationXAResourceList = new ArrayList<XAResource>(Collections.nCopies(numBranches, (XAResource) null));
+		destinationXidList = new ArrayList<Xid>(Collections.nCopies(numBranches, (Xid) null));
+		destinationConnectionList = new ArrayList<Connection>(Collections.nCopies(numBranches, (Connection) null));
+		destinationReadOnlyList = new ArrayList<Boolean>(Collections.nCopies(numBranches, Boolean.FALSE));
+
+		/* The branch of thread j on destination i is at i * numThreads + j. */
+		try {
+			runOnBranches("open", numBranches, branchNum -> {
+				XAConnection xaConnection = manager.getDestinationXAConnection(branchNum / numThreads);
+				destinationXAConnectionList.set(branchNum, xaConnection);
+
+				XAResource xaResource = xaConnection.getXAResource();
+				Xid xid = xidGenerator.generateXid();
+				Connection connection = xaConnection.getConnection();
+				connection.setAutoCommit(false);
+
+				destinationXAResourceList.set(branchNum, xaResource);
+				destinationXidList.set(branchNum, xid);
+				destinationConnectionList.set(branchNum, connection);
+			});
+		} catch (ClassNotFoundException | IOException | SQLException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new SQLException("Failed to open the destination connections", e);
+		}
+	}
+
+	@Override
+	public synchronized List<Connection> recoverBranches(int threadNum) throws SQLException {
+		if (destinationXAResourceList == null || destinationXidList == null) {
+			throw new SQLException("The XA resources are not initialized");
+		}
+
+		List<Connection> threadDestinationConnectionList = new ArrayList<Connection>(numDestinations);
+
+		for (int i = 0; i < numDestinations; i++) {
+			int branchNum = i * numThreads + threadNum;
+
+			XAResource oldXAResource = destinationXAResourceList.get(branchNum);
+			Xid oldXid = destinationXidList.get(branchNum);
+
+			/* The old branch may already be gone with its connection, so these are best effort. */
+			try {
+				oldXAResource.end(oldXid, XAResource.TMFAIL);
+			} catch (XAException e) {
+				LOGGER.log(Level.FINE, "Failed to end the old branch", e);
+			}
+
+			try {
+				oldXAResource.rollback(oldXid);
+			} catch (XAException e) {
+				LOGGER.log(Level.FINE, "Failed to roll back the old branch", e);
+			}
+
+			try {
+				destinationConnectionList.get(branchNum).close();
+				destinationXAConnectionList.get(branchNum).close();
+			} catch (SQLException e) {
+				LOGGER.log(Level.FINE, "Failed to close the old branch", e);
+			}
+
+			try {
+				XAConnection xaConnection = manager.getDestinationXAConnection(i);
+				XAResource xaResource = xaConnection.getXAResource();
+				Xid xid = xidGenerator.generateXid();
+				Connection connection = xaConnection.getConnection();
+				connection.setAutoCommit(false);
+
+				destinationXAConnectionList.set(branchNum, xaConnection);
+				destinationXAResourceList.set(branchNum, xaResource);
+				destinationXidList.set(branchNum, xid);
+				destinationConnectionList.set(branchNum, connection);
+
+				xaResource.start(xid, XAResource.TMNOFLAGS);
+
+				threadDestinationConnectionList.add(connection);
+			} catch (ClassNotFoundException | IOException | XAException e) {
+				throw new SQLException(String.format("Failed to reopen the branch of Thread-%s", threadNum + 1), e);
+			}
+		}
+
+		return threadDestinationConnectionList;
+	}
 
-		for (int i = 0; i < numThreads; i++) {
-			XAConnection xaConnection = manager.getDestinationXAConnection();
-			XAResource xaResource = xaConnection.getXAResource();
-			Xid xid = xidGenerator.generateXid();
-			Connection connection = xaConnection.getConnection();
-			connection.setAutoCommit(false);
+	private interface BranchAction {
+		void run(int branchNum) throws Exception;
+	}
 
-			destinationXAConnectionList.add(xaConnection);
-			destinationXAResourceList.add(xaResource);
-			destinationXidList.add(xid);
-			destinationConnectionList.add(connection);
+	/*-
+	 * Runs the action on every branch at once and waits for all of them, so that each XA phase is a barrier.
+	 * Every branch is attempted even if some fail, and the first failure is thrown with the others suppressed.
+	 * Each branch reports an XABranchEvent named after the phase when a recording enables it.
+	 */
+	private void runOnBranches(String phase, int numBranches, BranchAction action) throws Exception {
+		List<Future<Void>> futureList = new ArrayList<Future<Void>>(numBranches);
+
+		for (int i = 0; i < numBranches; i++) {
+			final int branchNum = i;
+			futureList.add(xaExecutorService.submit(() -> {
+				XABranchEvent event = new XABranchEvent();
+				event.begin();
+
+				try {
+					action.run(branchNum);
+					event.isSuccess = true;
+				} finally {
+					event.end();
+					if (event.shouldCommit()) {
+						event.phase = phase;
+						event.branchNum = branchNum;
+						event.destinationNum = branchNum / numThreads;
+						event.threadNum = branchNum % numThreads;
+						event.commit();
+					}
+				}
+
+				return null;
+			}));
+		}
+
+		Exception failure = null;
+
+		for (Future<Void> future : futureList) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+
+				if (failure == null) {
+					failure = (cause instanceof Exception) ? (Exception) cause : e;
+				} else {
+					failure.addSuppressed(cause);
+				}
+			}
+		}
+
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	private void runXAOnBranches(String phase, BranchAction action) throws XAException {
+		try {
+			runOnBranches(phase, destinationXAResourceList.size(), action);
+		} catch (XAException e) {
+			throw e;
+		} catch (Exception e) {
+			XAException xaException = new XAException(XAException.XAER_RMERR);
+			xaException.initCause(e);
+			throw xaException;
 		}
 	}
 
@@ -233,15 +969,8 @@ public class ParallelSelectAndInsert {
 			throw new NullPointerException("destinationXidList is null");
 		}
 
-		Iterator<XAResource> xaResourceIter = destinationXAResourceList.iterator();
-		Iterator<Xid> xidIter = destinationXidList.iterator();
-
-		while (xaResourceIter.hasNext() && xidIter.hasNext()) {
-			XAResource xaResource = xaResourceIter.next();
-			Xid xid = xidIter.next();
-
-			xaResource.start(xid, XAResource.TMNOFLAGS);
-		}
+		runXAOnBranches("start", branchNum -> destinationXAResourceList.get(branchNum)
+				.start(destinationXidList.get(branchNum), XAResource.TMNOFLAGS));
 	}
 
 	private boolean prepareXAResources() throws NullPointerException, XAException {
@@ -253,19 +982,20 @@ public class ParallelSelectAndInsert {
 			throw new NullPointerException("destinationXidList is null");
 		}
 
-		Iterator<XAResource> xaResourceIter = destinationXAResourceList.iterator();
-		Iterator<Xid> xidIter = destinationXidList.iterator();
+		AtomicBoolean isSuccess = new AtomicBoolean(true);
 
-		while (xaResourceIter.hasNext() && xidIter.hasNext()) {
-			XAResource xaResource = xaResourceIter.next();
-			Xid xid = xidIter.next();
+		runXAOnBranches("prepare", branchNum -> {
+			int vote = destinationXAResourceList.get(branchNum).prepare(destinationXidList.get(branchNum));
 
-			if (xaResource.prepare(xid) != XAResource.XA_OK) {
-				return false;
+			/* A read-only branch, such as a shard that got no rows, is already finished and must not be committed. */
+			if (vote == XAResource.XA_RDONLY) {
+				destinationReadOnlyList.set(branchNum, Boolean.TRUE);
+			} else if (vote != XAResource.XA_OK) {
+				isSuccess.set(false);
 			}
-		}
+		});
 
-		return true;
+		return isSuccess.get();
 	}
 
 	private boolean commitXAResources() throws NullPointerException, XAException {
@@ -277,15 +1007,11 @@ public class ParallelSelectAndInsert {
 			throw new NullPointerException("destinationXidList is null");
 		}
 
-		Iterator<XAResource> xaResourceIter = destinationXAResourceList.iterator();
-		Iterator<Xid> xidIter = destinationXidList.iterator();
-
-		while (xaResourceIter.hasNext() && xidIter.hasNext()) {
-			XAResource xaResource = xaResourceIter.next();
-			Xid xid = xidIter.next();
-
-			xaResource.commit(xid, false);
-		}
+		runXAOnBranches("commit", branchNum -> {
+			if (!destinationReadOnlyList.get(branchNum)) {
+				destinationXAResourceList.get(branchNum).commit(destinationXidList.get(branchNum), false);
+			}
+		});
 
 		return true;
 	}
@@ -299,15 +1025,20 @@ public class ParallelSelectAndInsert {
 			throw new NullPointerException("destinationXidList is null");
 		}
 
-		Iterator<XAResource> xaResourceIter = destinationXAResourceList.iterator();
-		Iterator<Xid> xidIter = destinationXidList.iterator();
-
-		while (xaResourceIter.hasNext() && xidIter.hasNext()) {
-			XAResource xaResource = xaResourceIter.next();
-			Xid xid = xidIter.next();
+		runXAOnBranches("rollback", branchNum -> {
+			if (destinationReadOnlyList.get(branchNum)) {
+				return;
+			}
 
-			xaResource.rollback(xid);
-		}
+			try {
+				destinationXAResourceList.get(branchNum).rollback(destinationXidList.get(branchNum));
+			} catch (XAException e) {
+				/* A branch that voted no in the prepare phase has already been rolled back. */
+				if (e.errorCode != XAException.XAER_NOTA) {
+					throw e;
+				}
+			}
+		});
 
 		return true;
 	}
@@ -321,39 +1052,73 @@ public class ParallelSelectAndInsert {
 			throw new NullPointerException("destinationXidList is null");
 		}
 
-		Iterator<XAResource> xaResourceIter = destinationXAResourceList.iterator();
-		Iterator<Xid> xidIter = destinationXidList.iterator();
-
-		while (xaResourceIter.hasNext() && xidIter.hasNext()) {
-			XAResource xaResource = xaResourceIter.next();
-			Xid Xid = xidIter.next();
-
-			xaResource.end(Xid, XAResource.TMSUCCESS);
-		}
+		runXAOnBranches("end", branchNum -> destinationXAResourceList.get(branchNum)
+				.end(destinationXidList.get(branchNum), XAResource.TMSUCCESS));
 
 		boolean isSuccess = prepareXAResources();
 		if (isSuccess) {
 			commitXAResources();
 		} else {
 			rollbackXAResources();
+
+			/* The copy failed, so the caller must not keep the tables it created or build indexes on them. */
+			XAException xaException = new XAException("A branch voted to roll back in the prepare phase");
+			xaException.errorCode = XAException.XA_RBROLLBACK;
+			throw xaException;
 		}
 	}
 
-	private void closeXAResources() throws SQLException {
-		if (destinationConnectionList != null) {
-			for (Connection connection : destinationConnectionList) {
-				if (connection != null) {
-					connection.close();
+	/*-
+	 * Ends every branch as failed. A branch that was already ended, or was never started, answers XAER_PROTO or
+	 * XAER_NOTA, and one the resource manager has already marked for rollback answers an XA_RB code.
+	 */
+	private void failXAResources() throws NullPointerException, XAException {
+		if (destinationXAResourceList == null) {
+			throw new NullPointerException("destinationXAResourceList is null");
+		}
+
+		if (destinationXidList == null) {
+			throw new NullPointerException("destinationXidList is null");
+		}
+
+		runXAOnBranches("fail", branchNum -> {
+			try {
+				destinationXAResourceList.get(branchNum).end(destinationXidList.get(branchNum), XAResource.TMFAIL);
+			} catch (XAException e) {
+				if (e.errorCode != XAException.XAER_PROTO && e.errorCode != XAException.XAER_NOTA
+						&& (e.errorCode < XAException.XA_RBBASE || e.errorCode > XAException.XA_RBEND)) {
+					throw e;
 				}
 			}
+		});
+	}
+
+	private void closeXAResources() throws SQLException {
+		if (xaExecutorService == null) {
+			return;
 		}
 
-		if (destinationXAConnectionList != null) {
-			for (XAConnection xaConnection : destinationXAConnectionList) {
-				if (xaConnection != null) {
-					xaConnection.close();
-				}
+		try {
+			if (destinationXAConnectionList != null) {
+				runOnBranches("close", destinationXAConnectionList.size(), branchNum -> {
+					Connection connection = destinationConnectionList.get(branchNum);
+					if (connection != null) {
+						connection.close();
+					}
+
+					XAConnection xaConnection = destinationXAConnectionList.get(branchNum);
+					if (xaConnection != null) {
+						xaConnection.close();
+					}
+				});
 			}
+		} catch (SQLException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new SQLException("Failed to close the destination connections", e);
+		} finally {
+			xaExecutorService.shutdown();
+			xaExecutorService = null;
 		}
 	}
 }
@@ -143,10 +143,24 @@ public class ProgressBarTask implements Callable<Void> {
 		progressPerThreadList.set(threadNum, progressPerThread);
 	}
 
+	public synchronized long getProgressPerThread(int threadNum) {
+		return progressPerThreadList.get(threadNum);
+	}
+
+	public synchronized void addProgressPerThread(int threadNum, long progressPerThread) {
+		long oldProgress = progressPerThreadList.get(threadNum);
+		progressPerThreadList.set(threadNum, oldProgress + progressPerThread);
+	}
+
 	public synchronized void setTotalPerThread(int threadNum, long totalPerThread) {
 		totalPerThreadList.set(threadNum, totalPerThread);
 	}
 
+	public synchronized void addTotalPerThread(int threadNum, long totalPerThread) {
+		long oldTotal = totalPerThreadList.get(threadNum);
+		totalPerThreadList.set(threadNum, oldTotal + totalPerThread);
+	}
+
 	public synchronized void addProgressOfMain(long progress) {
 		long oldProgress = this.progressPerThreadList.get(numThreads);
 		progressPerThreadList.set(numThreads, oldProgress + progress);
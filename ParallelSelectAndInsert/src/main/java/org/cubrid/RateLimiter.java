@@ -0,0 +1,150 @@
+package org.cubrid;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/*-
+ * A token bucket shared by all copy tasks that caps the rows and bytes read from the source per second.
+ * 
+ * A limit of 0 means unlimited. The bucket holds at most one second worth of tokens,
+ * and a caller that takes more tokens than are available sleeps until the debt is paid back.
+ * The limits can be changed while the copy is running, over JMX or by editing databases.properties,
+ * which is re-read periodically.
+ */
+public class RateLimiter implements Callable<Void> {
+	private static final Logger LOGGER = Logger.getLogger(RateLimiter.class.getName());
+
+	public static final long DEFAULT_RELOAD_INTERVAL_MILLIS = 5000;
+
+	private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private ConnectionManager manager;
+
+	private long maxRowsPerSecond;
+	private long maxBytesPerSecond;
+
+	/* The values last read from the file, so that a limit set in another way is kept until the file changes. */
+	private long loadedMaxRowsPerSecond;
+	private long loadedMaxBytesPerSecond;
+
+	private double rowTokens;
+	private double byteTokens;
+	private long lastRefillNanos;
+
+	public RateLimiter(long maxRowsPerSecond, long maxBytesPerSecond) {
+		this.maxRowsPerSecond = Math.max(0, maxRowsPerSecond);
+		this.maxBytesPerSecond = Math.max(0, maxBytesPerSecond);
+
+		this.loadedMaxRowsPerSecond = maxRowsPerSecond;
+		this.loadedMaxBytesPerSecond = maxBytesPerSecond;
+
+		this.rowTokens = this.maxRowsPerSecond;
+		this.byteTokens = this.maxBytesPerSecond;
+		this.lastRefillNanos = System.nanoTime();
+	}
+
+	public void setManager(ConnectionManager manager) {
+		this.manager = manager;
+	}
+
+	@Override
+	public Void call() {
+		while (!Thread.currentThread().isInterrupted()) {
+			try {
+				Thread.sleep(DEFAULT_RELOAD_INTERVAL_MILLIS);
+			} catch (InterruptedException e) {
+				return null;
+			}
+
+			if (manager == null) {
+				continue;
+			}
+
+			try {
+				long maxRowsPerSecond = manager.getSourceMaxRowsPerSecond();
+				if (maxRowsPerSecond != loadedMaxRowsPerSecond) {
+					loadedMaxRowsPerSecond = maxRowsPerSecond;
+					setMaxRowsPerSecond(maxRowsPerSecond);
+				}
+
+				long maxBytesPerSecond = manager.getSourceMaxBytesPerSecond();
+				if (maxBytesPerSecond != loadedMaxBytesPerSecond) {
+					loadedMaxBytesPerSecond = maxBytesPerSecond;
+					setMaxBytesPerSecond(maxBytesPerSecond);
+				}
+			} catch (IOException | NumberFormatException e) {
+				LOGGER.log(Level.WARNING, "Failed to reload the source rate limits", e);
+			}
+		}
+
+		return null;
+	}
+
+	public synchronized long getMaxRowsPerSecond() {
+		return maxRowsPerSecond;
+	}
+
+	public synchronized void setMaxRowsPerSecond(long maxRowsPerSecond) {
+		if (this.maxRowsPerSecond != maxRowsPerSecond) {
+			LOGGER.log(Level.INFO, String.format("Source rate limit set to %s rows/s", maxRowsPerSecond));
+		}
+
+		this.maxRowsPerSecond = Math.max(0, maxRowsPerSecond);
+		this.rowTokens = Math.min(rowTokens, this.maxRowsPerSecond);
+	}
+
+	public synchronized long getMaxBytesPerSecond() {
+		return maxBytesPerSecond;
+	}
+
+	public synchronized void setMaxBytesPerSecond(long maxBytesPerSecond) {
+		if (this.maxBytesPerSecond != maxBytesPerSecond) {
+			LOGGER.log(Level.INFO, String.format("Source rate limit set to %s bytes/s", maxBytesPerSecond));
+		}
+
+		this.maxBytesPerSecond = Math.max(0, maxBytesPerSecond);
+		this.byteTokens = Math.min(byteTokens, this.maxBytesPerSecond);
+	}
+
+	public void acquire(long rows, long bytes) throws InterruptedException {
+		long waitNanos = reserve(rows, bytes);
+
+		if (waitNanos > 0) {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+
+	private synchronized long reserve(long rows, long bytes) {
+		refill();
+
+		long waitNanos = 0;
+
+		if (maxRowsPerSecond > 0) {
+			rowTokens -= rows;
+			if (rowTokens < 0) {
+				waitNanos = Math.max(waitNanos, (long) (-rowTokens * NANOS_PER_SECOND / maxRowsPerSecond));
+			}
+		}
+
+		if (maxBytesPerSecond > 0) {
+			byteTokens -= bytes;
+			if (byteTokens < 0) {
+				waitNanos = Math.max(waitNanos, (long) (-byteTokens * NANOS_PER_SECOND / maxBytesPerSecond));
+			}
+		}
+
+		return waitNanos;
+	}
+
+	private void refill() {
+		long nowNanos = System.nanoTime();
+		double elapsedSeconds = (double) (nowNanos - lastRefillNanos) / NANOS_PER_SECOND;
+		lastRefillNanos = nowNanos;
+
+		rowTokens = Math.min(maxRowsPerSecond, rowTokens + elapsedSeconds * maxRowsPerSecond);
+		byteTokens = Math.min(maxBytesPerSecond, byteTokens + elapsedSeconds * maxBytesPerSecond);
+	}
+}
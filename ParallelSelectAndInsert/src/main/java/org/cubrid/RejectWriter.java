@@ -0,0 +1,97 @@
+package org.cubrid;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*-
+ * Writes the rows that the destination refused to a tab-separated reject file, one row per line.
+ * 
+ * Each line starts with the thread number, the destination number, the error code and the error message,
+ * followed by the column values. NULL is written as \N, and tabs, line breaks and backslashes are escaped.
+ * It is shared by all batch writers.
+ */
+public class RejectWriter implements Closeable {
+	private final Writer writer;
+	private final AtomicLong rejectedRowCount;
+
+	public RejectWriter(String fileName) throws IOException {
+		if (fileName == null) {
+			throw new IllegalArgumentException("Reject file name is null");
+		}
+
+		this.writer = new BufferedWriter(
+				new OutputStreamWriter(new FileOutputStream(fileName, true), StandardCharsets.UTF_8));
+		this.rejectedRowCount = new AtomicLong(0);
+	}
+
+	public synchronized void reject(int threadNum, int destinationNum, Object[] row, SQLException e)
+			throws IOException {
+		StringBuilder line = new StringBuilder();
+
+		line.append(threadNum + 1).append('\t');
+		line.append(destinationNum + 1).append('\t');
+		line.append(e.getErrorCode()).append('\t');
+		appendEscaped(line, e.getMessage());
+
+		for (Object value : row) {
+			line.append('\t');
+
+			if (value == null) {
+				line.append("\\N");
+			} else {
+				appendEscaped(line, value.toString());
+			}
+		}
+
+		line.append('\n');
+
+		writer.write(line.toString());
+		writer.flush();
+
+		rejectedRowCount.incrementAndGet();
+	}
+
+	private static void appendEscaped(StringBuilder line, String value) {
+		if (value == null) {
+			return;
+		}
+
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+
+			switch (c) {
+			case '\t':
+				line.append("\\t");
+				break;
+			case '\n':
+				line.append("\\n");
+				break;
+			case '\r':
+				line.append("\\r");
+				break;
+			case '\\':
+				line.append("\\\\");
+				break;
+			default:
+				line.append(c);
+				break;
+			}
+		}
+	}
+
+	public long getRejectedRowCount() {
+		return rejectedRowCount.get();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		writer.close();
+	}
+}
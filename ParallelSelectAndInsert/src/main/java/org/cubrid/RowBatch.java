@@ -0,0 +1,180 @@
+package org.cubrid;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*-
+ * The rows of one batch, buffered between fetching them from the source and binding them to the destination.
+ * 
+ * The values are stored by column in vectors of primitive arrays, where the column type allows it,
+ * which are allocated once and reused by every batch of the same copy task.
+ */
+public class RowBatch {
+	private final ColumnVector[] columnVectors;
+	private int capacity;
+	private int size;
+	private long bytes;
+	private long fetchStartNanos;
+	private long fetchNanos;
+
+	/* The rows that a destination rejected, which are not counted as copied. */
+	private boolean[] rejectedRows;
+	private int rejectedRowCount;
+
+	/* The number of writers that have not finished with this batch yet. */
+	private final AtomicInteger referenceCount;
+
+	/* columnTypes are the java.sql.Types of the columns, as reported by the result set metadata. */
+	public RowBatch(int[] columnTypes, int capacity) {
+		this(columnTypes, null, capacity);
+	}
+
+	/*-
+	 * The dictionaries, if not null, are indexed by column and shared by the batches of one copy task,
+	 * which is the only thread that reads rows into them.
+	 */
+	public RowBatch(int[] columnTypes, ColumnDictionary[] columnDictionaries, int capacity) {
+		if (columnTypes == null || columnTypes.length == 0) {
+			throw new IllegalArgumentException("The number of columns must be greater than 0");
+		}
+
+		this.capacity = Math.max(1, capacity);
+		this.columnVectors = new ColumnVector[columnTypes.length];
+		for (int i = 0; i < columnTypes.length; i++) {
+			ColumnDictionary columnDictionary = columnDictionaries != null ? columnDictionaries[i] : null;
+			this.columnVectors[i] = ColumnVector.create(columnTypes[i], this.capacity, columnDictionary);
+		}
+
+		this.size = 0;
+		this.bytes = 0;
+		this.fetchStartNanos = 0;
+		this.fetchNanos = 0;
+		this.rejectedRows = null;
+		this.rejectedRowCount = 0;
+		this.referenceCount = new AtomicInteger(0);
+	}
+
+	public int getColumnCount() {
+		return columnVectors.length;
+	}
+
+	/* Reads the current row of the result set into the batch. */
+	public void addRow(ResultSet resultSet) throws SQLException {
+		if (size == capacity) {
+			capacity *= 2;
+
+			for (ColumnVector columnVector : columnVectors) {
+				columnVector.ensureCapacity(capacity);
+			}
+		}
+
+		for (int i = 0; i < columnVectors.length; i++) {
+			bytes += columnVectors[i].read(resultSet, i + 1, size);
+		}
+
+		size++;
+	}
+
+	/* Binds a column of the row to a parameter. */
+	public void bind(PreparedStatement statement, int parameterIndex, int rowNum, int columnNum) throws SQLException {
+		checkRowNum(rowNum);
+
+		columnVectors[columnNum].bind(statement, parameterIndex, rowNum);
+	}
+
+	public Object getValue(int rowNum, int columnNum) {
+		checkRowNum(rowNum);
+
+		return columnVectors[columnNum].getValue(rowNum);
+	}
+
+	/* Returns the values of the row in a new array, for the rare rows that are rejected. */
+	public Object[] getRow(int rowNum) {
+		checkRowNum(rowNum);
+
+		Object[] row = new Object[columnVectors.length];
+		for (int i = 0; i < columnVectors.length; i++) {
+			row[i] = columnVectors[i].getValue(rowNum);
+		}
+
+		return row;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public long getBytes() {
+		return bytes;
+	}
+
+	/* Called when the copy task starts and stops filling the batch, to report how long fetching it took. */
+	public void startFetch() {
+		fetchStartNanos = System.nanoTime();
+	}
+
+	public void finishFetch() {
+		fetchNanos = System.nanoTime() - fetchStartNanos;
+	}
+
+	public long getFetchNanos() {
+		return fetchNanos;
+	}
+
+	/* Marks the row as rejected, counted once however many destinations reject it. */
+	public synchronized void reject(int rowNum) {
+		checkRowNum(rowNum);
+
+		if (rejectedRows == null || rejectedRows.length < size) {
+			rejectedRows = new boolean[capacity];
+		}
+
+		if (!rejectedRows[rowNum]) {
+			rejectedRows[rowNum] = true;
+			rejectedRowCount++;
+		}
+	}
+
+	public synchronized int getRejectedRowCount() {
+		return rejectedRowCount;
+	}
+
+	public void retain(int count) {
+		referenceCount.addAndGet(count);
+	}
+
+	/* Returns true when the last reference has been released. */
+	public boolean release() {
+		return referenceCount.decrementAndGet() == 0;
+	}
+
+	/* Drops the values, so that they do not outlive the batch, but keeps the vectors. */
+	public void clear() {
+		for (ColumnVector columnVector : columnVectors) {
+			columnVector.clear(size);
+		}
+
+		if (rejectedRowCount > 0) {
+			Arrays.fill(rejectedRows, false);
+			rejectedRowCount = 0;
+		}
+
+		size = 0;
+		bytes = 0;
+		fetchStartNanos = 0;
+		fetchNanos = 0;
+	}
+
+	private void checkRowNum(int rowNum) {
+		if (rowNum >= size) {
+			throw new IndexOutOfBoundsException(String.format("Row %s of %s", rowNum, size));
+		}
+	}
+}
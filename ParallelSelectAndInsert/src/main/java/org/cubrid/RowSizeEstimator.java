@@ -0,0 +1,45 @@
+package org.cubrid;
+
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.Clob;
+
+/*-
+ * Estimates the number of bytes a bound value occupies on the wire.
+ * The estimates do not need to be exact, only cheap and proportional to the real size.
+ */
+public class RowSizeEstimator {
+	private static final int DEFAULT_VALUE_SIZE = 16;
+	private static final int LOB_LOCATOR_SIZE = 128;
+
+	private RowSizeEstimator() {
+	}
+
+	public static long estimateSize(Object value) {
+		if (value == null) {
+			return 1;
+		}
+
+		if (value instanceof String) {
+			return ((String) value).length();
+		}
+
+		if (value instanceof byte[]) {
+			return ((byte[]) value).length;
+		}
+
+		if (value instanceof BigDecimal) {
+			return ((BigDecimal) value).precision() / 2 + 2;
+		}
+
+		if (value instanceof Number || value instanceof java.util.Date) {
+			return Long.BYTES;
+		}
+
+		if (value instanceof Blob || value instanceof Clob) {
+			return LOB_LOCATOR_SIZE;
+		}
+
+		return DEFAULT_VALUE_SIZE;
+	}
+}
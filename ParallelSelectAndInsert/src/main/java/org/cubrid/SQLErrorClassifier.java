@@ -0,0 +1,59 @@
+package org.cubrid;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
+
+/*-
+ * Tells the errors caused by the data of a row apart from the errors caused by the connection,
+ * and the errors that are worth retrying apart from the ones that will fail again.
+ */
+public class SQLErrorClassifier {
+	/* The SQLSTATE class of connection exceptions. */
+	private static final String CONNECTION_EXCEPTION_CLASS = "08";
+
+	/* The SQLSTATE class of transaction rollbacks, such as serialization failures and deadlocks. */
+	private static final String TRANSACTION_ROLLBACK_CLASS = "40";
+
+	/* The CUBRID JDBC driver and CAS error codes for a lost connection to the broker. */
+	private static final int CUBRID_ER_COMMUNICATION = -21003;
+	private static final int CAS_ER_COMMUNICATION = -10003;
+
+	private SQLErrorClassifier() {
+	}
+
+	public static boolean isConnectionError(SQLException e) {
+		if (e instanceof SQLRecoverableException || e instanceof SQLTransientConnectionException
+				|| e instanceof SQLNonTransientConnectionException) {
+			return true;
+		}
+
+		String sqlState = e.getSQLState();
+		if (sqlState != null && sqlState.startsWith(CONNECTION_EXCEPTION_CLASS)) {
+			return true;
+		}
+
+		if (e.getErrorCode() == CUBRID_ER_COMMUNICATION || e.getErrorCode() == CAS_ER_COMMUNICATION) {
+			return true;
+		}
+
+		return false;
+	}
+
+	public static boolean isTransientError(SQLException e) {
+		for (SQLException cause = e; cause != null; cause = cause.getNextException()) {
+			if (isConnectionError(cause) || cause instanceof SQLTransientException) {
+				return true;
+			}
+
+			String sqlState = cause.getSQLState();
+			if (sqlState != null && sqlState.startsWith(TRANSACTION_ROLLBACK_CLASS)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,133 @@
+package org.cubrid;
+
+import java.math.BigDecimal;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*-
+ * Chooses the destination of a row from the value of its shard key column.
+ * 
+ * Without range boundaries, the value is hashed over all destinations.
+ * With N - 1 ascending boundaries for N destinations, destination 1 gets the values below the first boundary,
+ * destination k gets the values from boundary k - 1 up to, but not including, boundary k,
+ * and the last destination gets the rest. NULL values always go to the first destination.
+ */
+public class ShardRouter {
+	private final String shardColumnName;
+	private final int numDestinations;
+	private final List<String> rangeBoundaryList;
+	private final List<BigDecimal> numericRangeBoundaryList;
+
+	public ShardRouter(String shardColumnName, int numDestinations, List<String> rangeBoundaryList) {
+		if (shardColumnName == null) {
+			throw new IllegalArgumentException("Shard column name is null");
+		}
+
+		if (numDestinations <= 0) {
+			throw new IllegalArgumentException("The number of destinations must be greater than 0");
+		}
+
+		if (rangeBoundaryList != null && !rangeBoundaryList.isEmpty()
+				&& rangeBoundaryList.size() != numDestinations - 1) {
+			throw new IllegalArgumentException(
+					String.format("%s destinations need %s range boundaries, but %s were given", numDestinations,
+							numDestinations - 1, rangeBoundaryList.size()));
+		}
+
+		this.shardColumnName = shardColumnName;
+		this.numDestinations = numDestinations;
+
+		if (rangeBoundaryList != null && !rangeBoundaryList.isEmpty()) {
+			this.rangeBoundaryList = new ArrayList<String>(rangeBoundaryList);
+			this.numericRangeBoundaryList = getNumericRangeBoundaryList(rangeBoundaryList);
+		} else {
+			this.rangeBoundaryList = null;
+			this.numericRangeBoundaryList = null;
+		}
+	}
+
+	/* Returns null unless every boundary is a number. */
+	private static List<BigDecimal> getNumericRangeBoundaryList(List<String> rangeBoundaryList) {
+		List<BigDecimal> numericRangeBoundaryList = new ArrayList<BigDecimal>(rangeBoundaryList.size());
+
+		for (String rangeBoundary : rangeBoundaryList) {
+			try {
+				numericRangeBoundaryList.add(new BigDecimal(rangeBoundary.trim()));
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		return numericRangeBoundaryList;
+	}
+
+	public String getShardColumnName() {
+		return shardColumnName;
+	}
+
+	public int getNumDestinations() {
+		return numDestinations;
+	}
+
+	/* Returns the 0-based position of the shard key column in the fetched rows. */
+	public int getShardColumnIndex(ResultSetMetaData metadata) throws SQLException {
+		for (int i = 1; i <= metadata.getColumnCount(); i++) {
+			if (shardColumnName.equalsIgnoreCase(metadata.getColumnName(i))) {
+				return i - 1;
+			}
+		}
+
+		throw new SQLException(String.format("Shard column not found: %s", shardColumnName));
+	}
+
+	public int route(Object value) {
+		if (value == null || numDestinations == 1) {
+			return 0;
+		}
+
+		if (rangeBoundaryList != null) {
+			return routeByRange(value);
+		}
+
+		return routeByHash(value);
+	}
+
+	private int routeByHash(Object value) {
+		int hash;
+
+		if (value instanceof Number) {
+			/* 1, 1.0 and 1.00 must land on the same destination. */
+			hash = new BigDecimal(value.toString()).stripTrailingZeros().hashCode();
+		} else {
+			hash = value.toString().hashCode();
+		}
+
+		hash ^= (hash >>> 16);
+
+		return Math.floorMod(hash, numDestinations);
+	}
+
+	private int routeByRange(Object value) {
+		int destinationNum = 0;
+
+		if (value instanceof Number && numericRangeBoundaryList != null) {
+			BigDecimal numericValue = new BigDecimal(value.toString());
+
+			while (destinationNum < numericRangeBoundaryList.size()
+					&& numericValue.compareTo(numericRangeBoundaryList.get(destinationNum)) >= 0) {
+				destinationNum++;
+			}
+		} else {
+			String stringValue = value.toString();
+
+			while (destinationNum < rangeBoundaryList.size()
+					&& stringValue.compareTo(rangeBoundaryList.get(destinationNum)) >= 0) {
+				destinationNum++;
+			}
+		}
+
+		return destinationNum;
+	}
+}
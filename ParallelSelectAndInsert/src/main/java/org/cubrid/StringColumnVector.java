@@ -0,0 +1,79 @@
+package org.cubrid;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/*-
+ * Character columns, kept as the strings the driver returns, so that each row is bound from the same instance
+ * for every destination without building it again.
+ * 
+ * With a dictionary, a repeated value is replaced by the dictionary's shared instance, so that a buffered batch
+ * of a low-cardinality column keeps one string per distinct value and the driver's copies die young.
+ */
+public class StringColumnVector extends ColumnVector {
+	private final ColumnDictionary dictionary;
+	private String[] values;
+
+	public StringColumnVector(int capacity, ColumnDictionary dictionary) {
+		super(capacity);
+
+		this.dictionary = dictionary;
+		this.values = new String[Math.max(1, capacity)];
+	}
+
+	@Override
+	public long read(ResultSet resultSet, int columnIndex, int rowNum) throws SQLException {
+		String value = resultSet.getString(columnIndex);
+
+		if (value == null) {
+			setNull(rowNum);
+			return 1;
+		}
+
+		if (dictionary != null) {
+			value = (String) dictionary.encode(value);
+		}
+
+		values[rowNum] = value;
+
+		return value.length();
+	}
+
+	@Override
+	public void bind(PreparedStatement statement, int parameterIndex, int rowNum) throws SQLException {
+		if (isNull(rowNum)) {
+			statement.setNull(parameterIndex, Types.VARCHAR);
+			return;
+		}
+
+		statement.setString(parameterIndex, values[rowNum]);
+	}
+
+	@Override
+	public Object getValue(int rowNum) {
+		if (isNull(rowNum)) {
+			return null;
+		}
+
+		return values[rowNum];
+	}
+
+	@Override
+	public void ensureCapacity(int capacity) {
+		super.ensureCapacity(capacity);
+
+		if (capacity > values.length) {
+			values = Arrays.copyOf(values, Math.max(capacity, values.length * 2));
+		}
+	}
+
+	@Override
+	public void clear(int size) {
+		super.clear(size);
+
+		Arrays.fill(values, 0, Math.min(size, values.length), null);
+	}
+}
@@ -0,0 +1,57 @@
+package org.cubrid;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*-
+ * The columns and indexes of a source table, as read from the catalog,
+ * to create the destination table without indexes and add them after the load.
+ *
+ * Only what the copy needs is replicated: column types, collations and NOT NULL, the primary key,
+ * and unique and plain indexes. Defaults, foreign keys, function and filtered indexes are not.
+ */
+public class TableDefinition {
+	private final String tableName;
+	private final List<String> columnList;
+	private final List<IndexDefinition> indexDefinitionList;
+
+	public TableDefinition(String tableName) {
+		this.tableName = tableName;
+		this.columnList = new ArrayList<String>();
+		this.indexDefinitionList = new ArrayList<IndexDefinition>();
+	}
+
+	public String getTableName() {
+		return tableName;
+	}
+
+	/* A column as it appears in 'CREATE TABLE', such as "[name] varchar(100) not null". */
+	public void addColumn(String column) {
+		columnList.add(column);
+	}
+
+	public List<IndexDefinition> getIndexDefinitionList() {
+		return indexDefinitionList;
+	}
+
+	public void addIndexDefinition(IndexDefinition indexDefinition) {
+		indexDefinitionList.add(indexDefinition);
+	}
+
+	public String getCreateTableQuery(String destinationTableName) {
+		StringBuilder query = new StringBuilder();
+		query.append("create table ").append(destinationTableName).append(" (");
+
+		for (int i = 0; i < columnList.size(); i++) {
+			if (i > 0) {
+				query.append(", ");
+			}
+
+			query.append(columnList.get(i));
+		}
+
+		query.append(")");
+
+		return query.toString();
+	}
+}
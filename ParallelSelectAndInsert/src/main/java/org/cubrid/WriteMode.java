@@ -0,0 +1,23 @@
+package org.cubrid;
+
+public enum WriteMode {
+	/* Plain 'INSERT', fails on the first duplicate key. */
+	INSERT,
+
+	/* 'INSERT ... ON DUPLICATE KEY UPDATE' keyed on the destination primary key. */
+	UPSERT;
+
+	public static WriteMode fromString(String name) {
+		if (name == null) {
+			throw new IllegalArgumentException("Write mode is null");
+		}
+
+		for (WriteMode writeMode : values()) {
+			if (writeMode.name().equalsIgnoreCase(name)) {
+				return writeMode;
+			}
+		}
+
+		throw new IllegalArgumentException(String.format("Unknown write mode: %s", name));
+	}
+}
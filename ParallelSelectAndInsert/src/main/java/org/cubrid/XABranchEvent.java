@@ -0,0 +1,37 @@
+package org.cubrid;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*-
+ * One XA phase, such as prepare or commit, on one (destination, thread) branch.
+ *
+ * Disabled unless a recording enables it, such as the one started with --jfr.
+ */
+@Name("org.cubrid.XABranch")
+@Label("XA Branch Phase")
+@Category({ "ParallelSelectAndInsert" })
+@Description("An XA phase issued to one destination branch")
+@Enabled(false)
+@StackTrace(false)
+public class XABranchEvent extends Event {
+	@Label("Phase")
+	public String phase;
+
+	@Label("Branch Number")
+	public int branchNum;
+
+	@Label("Destination Number")
+	public int destinationNum;
+
+	@Label("Thread Number")
+	public int threadNum;
+
+	@Label("Success")
+	public boolean isSuccess;
+}
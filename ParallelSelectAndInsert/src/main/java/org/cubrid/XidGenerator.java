@@ -19,7 +19,7 @@ public class XidGenerator {
 		this.branchQualifierCounter = 0;
 	}
 
-	public Xid generateXid() {
+	public synchronized Xid generateXid() {
 		int nextBranchQualifier = getNextBranchQualifier();
 		return new CUBRIDXid(this.formatId, this.globalTransactionId,
 				ByteBuffer.allocate(Long.BYTES).putLong(nextBranchQualifier).array());